@@ -1,5 +1,6 @@
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -136,6 +137,50 @@ public class ArgumentParser {
 		return value == null ? defaultValue : value;
 	}
 
+	/**
+	 * Returns the value the specified flag is mapped as an {@code int}, or the
+	 * default value if the flag does not exist, has a null value, or is not a
+	 * valid integer.
+	 *
+	 * @param flag         the flag whose associated value will be returned
+	 * @param defaultValue the default value to return if there is no valid mapping
+	 *                     for the flag
+	 * @return the value the specified flag is mapped as an {@code int}, or the
+	 * default value if there is no valid mapping for the flag
+	 * @see Integer#parseInt(String)
+	 */
+	public int getInteger(String flag, int defaultValue) {
+		try {
+			return Integer.parseInt(map.get(flag));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns the value the specified flag is mapped as a constant of an enum
+	 * type, ignoring case, or the default value if the flag does not exist, has
+	 * a null value, or does not name a constant of the enum type.
+	 *
+	 * @param <T>          the enum type
+	 * @param flag         the flag whose associated value will be returned
+	 * @param type         the class of the enum type
+	 * @param defaultValue the default value to return if there is no valid mapping
+	 *                     for the flag
+	 * @return the value the specified flag is mapped as a constant of type, or
+	 * the default value if there is no valid mapping for the flag
+	 * @see Enum#valueOf(Class, String)
+	 */
+	public <T extends Enum<T>> T getEnum(String flag, Class<T> type, T defaultValue) {
+		String value = map.get(flag);
+
+		try {
+			return value == null ? defaultValue : Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return defaultValue;
+		}
+	}
+
 	/**
 	 * Returns the value to which the specified flag is mapped as a {@link Path}, or
 	 * {@code null} if the flag does not exist or has a null value.
@@ -0,0 +1,381 @@
+import java.util.*;
+
+/**
+ * A version of {@link InvertedIndex} that uses a compact storage engine. Each
+ * word is mapped to a {@link PostingList} of primitive {@code int} arrays
+ * instead of a TreeMap of TreeSets, and locations are referenced by an integer
+ * id from a location dictionary instead of repeating the location String in
+ * every word. Positions are only boxed into {@link Integer} objects when they
+ * are read through the public API.
+ * <p>
+ * Warning: This class is not thread-safe.
+ *
+ * @see PostingList
+ */
+public class CompactInvertedIndex extends InvertedIndex {
+	/**
+	 * A TreeMap storage structure that holds a stemmed word mapped to the
+	 * postings of the locations it was found in
+	 */
+	private final TreeMap<String, PostingList> invertedIndex;
+
+	/**
+	 * Location dictionary, mapping a location id to its location
+	 */
+	private final ArrayList<String> locations;
+
+	/**
+	 * Location dictionary, mapping a location to its location id
+	 */
+	private final HashMap<String, Integer> locationIds;
+
+	/**
+	 * Amount of words found in each location, indexed by location id
+	 */
+	private int[] wordCounts;
+
+	/**
+	 * Words found in each location, indexed by location id, so a location can
+	 * be removed without visiting every word. Null until locations are first
+	 * tracked or removed
+	 *
+	 * @see #trackLocationWords()
+	 */
+	private ArrayList<HashSet<String>> locationWords;
+
+	/**
+	 * Class constructor that handles initializing invertedIndex and the
+	 * location dictionary
+	 */
+	public CompactInvertedIndex() {
+		super(false);
+		this.invertedIndex = new TreeMap<>();
+		this.locations = new ArrayList<>();
+		this.locationIds = new HashMap<>();
+		this.wordCounts = new int[16];
+	}
+
+	/**
+	 * Gets the id of a location, adding it to the location dictionary if it
+	 * does not have one yet.
+	 *
+	 * @param location location to get the id of
+	 * @return id of location
+	 */
+	private int getLocationId(String location) {
+		Integer id = locationIds.get(location);
+
+		if (id == null) {
+			id = locations.size();
+			locations.add(location);
+			locationIds.put(location, id);
+
+			if (locationWords != null) {
+				locationWords.add(new HashSet<>());
+			}
+
+			if (id == wordCounts.length) {
+				wordCounts = Arrays.copyOf(wordCounts, wordCounts.length * 2);
+			}
+		}
+
+		return id;
+	}
+
+	@Override
+	public void add(String word, String location, int position) {
+		modified();
+		int id = getLocationId(location);
+		PostingList postings = invertedIndex.get(word);
+
+		if (postings == null) {
+			postings = new PostingList();
+			invertedIndex.put(word, postings);
+		}
+
+		int documents = postings.size();
+		if (postings.add(id, position)) {
+			wordCounts[id]++;
+		}
+
+		if (locationWords != null && postings.size() > documents) {
+			locationWords.get(id).add(word);
+		}
+	}
+
+	@Override
+	public void addAll(InvertedIndex other, Collection<String> words) {
+		for (String word : words) {
+			for (String location : other.get(word)) {
+				for (int position : other.get(word, location)) {
+					add(word, location, position);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts remembering the words found in each location, so that
+	 * {@link #remove(String)} only has to visit the posting lists of the words
+	 * of the location it removes. The words of the locations already stored are
+	 * found with one pass over the index.
+	 */
+	@Override
+	public void trackLocationWords() {
+		if (locationWords != null) {
+			return;
+		}
+
+		locationWords = new ArrayList<>(locations.size());
+		for (int id = 0; id < locations.size(); id++) {
+			locationWords.add(new HashSet<>());
+		}
+
+		for (var entry : invertedIndex.entrySet()) {
+			PostingList postings = entry.getValue();
+
+			for (int i = 0; i < postings.size(); i++) {
+				locationWords.get(postings.getDocument(i)).add(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Removes a location, along with every position stored for it and its word
+	 * count. Only the posting lists of the words found in location are visited.
+	 * The location keeps its id, so it can be added again later. The words of
+	 * every location start being tracked first if they are not already.
+	 *
+	 * @param location location to remove
+	 * @return true if location was stored in the index, false otherwise
+	 * @see #trackLocationWords()
+	 */
+	@Override
+	public boolean remove(String location) {
+		Integer id = locationIds.get(location);
+
+		if (id == null || wordCounts[id] == 0) {
+			return false;
+		}
+
+		modified();
+		trackLocationWords();
+		HashSet<String> words = locationWords.get(id);
+
+		for (String word : words) {
+			PostingList postings = invertedIndex.get(word);
+
+			if (postings.remove(id) > 0 && postings.size() == 0) {
+				invertedIndex.remove(word);
+			}
+		}
+
+		words.clear();
+		wordCounts[id] = 0;
+		return true;
+	}
+
+	/**
+	 * Shrinks every posting list to the number of documents and positions it
+	 * stores. Should be called once a build has finished.
+	 */
+	public void trimToSize() {
+		for (PostingList postings : invertedIndex.values()) {
+			postings.trimToSize();
+		}
+	}
+
+	/**
+	 * Returns the locations of a posting list sorted alphabetically, mapped to
+	 * their positions. Positions are read from the posting list as they are
+	 * iterated over.
+	 *
+	 * @param postings posting list to convert
+	 * @return sorted map of locations to positions
+	 */
+	private TreeMap<String, Collection<Integer>> asMap(PostingList postings) {
+		TreeMap<String, Collection<Integer>> map = new TreeMap<>();
+
+		for (int i = 0; i < postings.size(); i++) {
+			map.put(locations.get(postings.getDocument(i)), postings.getPositions(i));
+		}
+
+		return map;
+	}
+
+	/**
+	 * Returns a view of invertedIndex where every posting list is converted to a
+	 * sorted map of locations as it is iterated over, so only one word's
+	 * locations are held on the heap at a time.
+	 *
+	 * @return sorted map of words to locations to positions
+	 */
+	@Override
+	protected Map<String, Map<String, Collection<Integer>>> asMap() {
+		return new AbstractMap<>() {
+			@Override
+			public Set<Entry<String, Map<String, Collection<Integer>>>> entrySet() {
+				return new AbstractSet<>() {
+					@Override
+					public Iterator<Entry<String, Map<String, Collection<Integer>>>> iterator() {
+						var iterator = invertedIndex.entrySet().iterator();
+
+						return new Iterator<>() {
+							@Override
+							public boolean hasNext() {
+								return iterator.hasNext();
+							}
+
+							@Override
+							public Entry<String, Map<String, Collection<Integer>>> next() {
+								var entry = iterator.next();
+								return Map.entry(entry.getKey(), asMap(entry.getValue()));
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						return invertedIndex.size();
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	protected TreeMap<String, Integer> getWordCounts() {
+		TreeMap<String, Integer> counts = new TreeMap<>();
+
+		for (int id = 0; id < locations.size(); id++) {
+			if (wordCounts[id] > 0) {
+				counts.put(locations.get(id), wordCounts[id]);
+			}
+		}
+
+		return counts;
+	}
+
+	@Override
+	public boolean contains(String word) {
+		return invertedIndex.containsKey(word);
+	}
+
+	@Override
+	public boolean contains(String word, String location) {
+		PostingList postings = invertedIndex.get(word);
+		Integer id = locationIds.get(location);
+		return postings != null && id != null && postings.indexOf(id) >= 0;
+	}
+
+	@Override
+	public boolean contains(String word, String location, int position) {
+		PostingList postings = invertedIndex.get(word);
+		Integer id = locationIds.get(location);
+
+		if (postings != null && id != null) {
+			int index = postings.indexOf(id);
+			return index >= 0 && postings.contains(index, position);
+		}
+		return false;
+	}
+
+	@Override
+	public Collection<String> get() {
+		return Collections.unmodifiableSet(invertedIndex.keySet());
+	}
+
+	/**
+	 * Returns a view of the locations of a word, read from its posting list as
+	 * they are iterated over. Locations are in the order they were first added
+	 * rather than sorted; {@link #asMap()} sorts the locations of each word.
+	 *
+	 * @param word word to get the locations of
+	 * @return unmodifiable collection of locations for word
+	 */
+	@Override
+	public Collection<String> get(String word) {
+		PostingList postings = invertedIndex.get(word);
+
+		if (postings == null) {
+			return Collections.emptySet();
+		}
+
+		return new AbstractCollection<>() {
+			@Override
+			public Iterator<String> iterator() {
+				return new Iterator<>() {
+					/**
+					 * Index of the next location in the posting list
+					 */
+					private int index = 0;
+
+					@Override
+					public boolean hasNext() {
+						return index < postings.size();
+					}
+
+					@Override
+					public String next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						return locations.get(postings.getDocument(index++));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return postings.size();
+			}
+		};
+	}
+
+	@Override
+	public Collection<Integer> get(String word, String location) {
+		PostingList postings = invertedIndex.get(word);
+		Integer id = locationIds.get(location);
+
+		if (postings != null && id != null) {
+			int index = postings.indexOf(id);
+
+			if (index >= 0) {
+				return postings.getPositions(index);
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Collection<String> getLocations() {
+		return Collections.unmodifiableSet(getWordCounts().keySet());
+	}
+
+	@Override
+	public Integer getWordCount(String location) {
+		Integer id = locationIds.get(location);
+		return id == null ? 0 : wordCounts[id];
+	}
+
+	@Override
+	protected void addCounts(String word, Map<String, Integer> counts) {
+		PostingList postings = invertedIndex.get(word);
+
+		if (postings != null) {
+			for (int i = 0; i < postings.size(); i++) {
+				counts.merge(locations.get(postings.getDocument(i)), postings.getCount(i), Integer::sum);
+			}
+		}
+	}
+
+	@Override
+	protected void addPartialCounts(String prefix, Map<String, Integer> counts) {
+		for (String word : invertedIndex.tailMap(prefix).keySet()) {
+			if (!word.startsWith(prefix)) {
+				break;
+			}
+			addCounts(word, counts);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+/**
+ * Distributed version of {@link SearchResultsGenerator}. Instead of searching
+ * a local index, every query is sent to every partition of a
+ * document-partitioned index through a {@link PartitionCoordinator}, and the
+ * results found by each partition are merged.
+ *
+ * @see PartitionCoordinator
+ * @see PartitionServer
+ */
+public class DistributedSearchResultsGenerator extends SearchResultsGenerator {
+	/**
+	 * Coordinator searches will be sent through.
+	 */
+	private final PartitionCoordinator coordinator;
+
+	/**
+	 * DistributedSearchResultsGenerator constructor. Takes in the coordinator
+	 * of the partitions all searches will be performed against. The local index
+	 * of this generator is left empty.
+	 *
+	 * @param coordinator coordinator of the partitions to search
+	 */
+	public DistributedSearchResultsGenerator(PartitionCoordinator coordinator) {
+		this(coordinator, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * DistributedSearchResultsGenerator constructor. Takes in the coordinator
+	 * of the partitions all searches will be performed against, and the maximum
+	 * number of results kept for each query. Each partition only sends back its
+	 * own best results, up to the same limit.
+	 *
+	 * @param coordinator coordinator of the partitions to search
+	 * @param limit       maximum number of results kept for each query
+	 */
+	public DistributedSearchResultsGenerator(PartitionCoordinator coordinator, int limit) {
+		super(new InvertedIndex(), limit);
+		this.coordinator = coordinator;
+	}
+
+	/**
+	 * Searches every partition for a query and merges their results.
+	 *
+	 * @param searchQuery query to search for
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 * @return sorted list of results found for searchQuery
+	 * @throws UncheckedIOException if a partition was not able to be searched
+	 */
+	@Override
+	protected ArrayList<Result> getResults(Query searchQuery, boolean exact) {
+		try {
+			return coordinator.search(searchQuery, exact, getLimit());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
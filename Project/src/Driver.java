@@ -1,9 +1,15 @@
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Class responsible for running this project based on the provided command-line
@@ -14,6 +20,11 @@ import java.util.TreeMap;
  * @version Fall 2019
  */
 public class Driver {
+	/**
+	 * The default port a partition is served on.
+	 */
+	public static final int DEFAULT_PORT = 7070;
+
 	/**
 	 * Initializes the classes necessary based on the provided command-line
 	 * arguments. This includes (but is not limited to) how to build or search an
@@ -25,34 +36,140 @@ public class Driver {
 		// store initial start time
 		Instant start = Instant.now();
 		ArgumentParser parser = new ArgumentParser(args);
-		InvertedIndex index = new InvertedIndex();
-		InvertedIndexGenerator generator = new InvertedIndexGenerator(index);
-		TreeMap<Query, ArrayList<Result>> searchResults = new TreeMap<>();
+		InvertedIndex index;
+		WorkQueue queue = null;
 		ArrayList<Query> searchQueries = new ArrayList<>();
+		long baseMemory = parser.hasFlag("-memory") ? usedMemory() : 0;
+		boolean pretty = !parser.hasFlag("-compact");
+		SnowballStemmer.ALGORITHM algorithm = parser.getEnum("-lang", SnowballStemmer.ALGORITHM.class, null);
+
+		if (algorithm == null) {
+			if (parser.hasValue("-lang")) {
+				String algorithms = Arrays.toString(SnowballStemmer.ALGORITHM.values()).toLowerCase(Locale.ROOT);
+				System.out.println("Invalid language (expected one of " + algorithms.substring(1, algorithms.length() - 1)
+						+ "): " + parser.getString("-lang"));
+			}
+			algorithm = StemmerPool.DEFAULT;
+		}
+
+		Partition partition = Partition.ALL;
+		if (parser.hasFlag("-partition")) {
+			String value = parser.getString("-partition", "0/1");
+			try {
+				partition = Partition.parse(value);
+			} catch (IllegalArgumentException e) {
+				System.out.println("Invalid partition (expected index/count): " + value);
+			}
+		}
+
+		StemmerPool stemmers = new StemmerPool(algorithm);
+		StemCache cache = new StemCache(parser.getInteger("-stemcache", StemCache.DEFAULT_CAPACITY), stemmers);
 
+		if (parser.hasFlag("-threads")) {
+			int threads = parser.getInteger("-threads", WorkQueue.DEFAULT);
+			queue = new WorkQueue(threads > 0 ? threads : WorkQueue.DEFAULT);
+		}
+
+		if (parser.hasFlag("-engine") && (queue != null || parser.hasFlag("-shards"))) {
+			System.out.println("Ignoring -engine " + parser.getString("-engine")
+					+ ": only the default engine can be used with -threads or -shards");
+		}
+
+		if (parser.hasFlag("-shards")) {
+			index = new ShardedInvertedIndex(parser.getInteger("-shards", ShardedInvertedIndex.DEFAULT_SHARDS));
+		} else if (queue != null) {
+			index = new ThreadSafeInvertedIndex();
+		} else {
+			index = "compact".equals(parser.getString("-engine")) ? new CompactInvertedIndex() : new InvertedIndex();
+		}
+
+		if (parser.hasFlag("-incremental")) {
+			// remember the words of each location while loading, since incremental builds remove locations
+			index.trackLocationWords();
+		}
 
-		if (parser.hasFlag("-path") && parser.hasValue("-path")) {
-			Path path = parser.getPath("-path");
+		if (parser.hasFlag("-open")) {
+			Path path = parser.getPath("-open", Path.of("index.bin"));
 			try {
-				generator.build(path);
+				Instant openStart = Instant.now();
+				index = FrozenInvertedIndex.open(path);
+				System.out.printf("Opened index from %s: %f seconds%n", path, seconds(openStart));
 			} catch (IOException e) {
-				System.out.println("Unable to generate index from path: " + path);
+				System.out.println("Unable to open index from file at: " + path);
+			}
+
+			if (partition != Partition.ALL) {
+				System.out.println("Ignoring -partition " + partition
+						+ ": an opened index cannot be partitioned; save one built with -partition instead");
+			}
+		} else {
+			if (parser.hasFlag("-load")) {
+				Path path = parser.getPath("-load", Path.of("index.json"));
+				try {
+					Instant loadStart = Instant.now();
+					SimpleJsonReader.asInvertedIndex(path, index);
+					System.out.printf("Loaded index from %s: %f seconds%n", path, seconds(loadStart));
+				} catch (IOException e) {
+					System.out.println("Unable to load index from file at: " + path);
+				}
+
+				keepPartition(index, partition);
 			}
+
+			if (parser.hasFlag("-path") && parser.hasValue("-path")) {
+				Path path = parser.getPath("-path");
+				try {
+					build(parser, index, queue, cache, partition, path);
+				} catch (IOException e) {
+					System.out.println("Unable to generate index from path: " + path);
+				}
+			}
+		}
+
+		if (parser.hasFlag("-freeze")) {
+			Instant freezeStart = Instant.now();
+			index = index.freeze();
+			System.out.printf("Froze index: %f seconds%n", seconds(freezeStart));
+		}
+
+		if (parser.hasFlag("-memory")) {
+			long postings = 0;
+			for (String location : index.getLocations()) {
+				postings += index.getWordCount(location);
+			}
+			long bytes = usedMemory() - baseMemory;
+			System.out.printf("Index uses about %d bytes for %d postings (%.2f bytes/posting)%n",
+					bytes, postings, (double) bytes / postings);
 		}
 
 		if (parser.hasFlag("-index")) {
 			Path path = parser.getPath("-index", Path.of("index.json"));
 			try {
-				index.writeIndex(path);
+				Instant writeStart = Instant.now();
+				if (queue == null) {
+					index.writeIndex(path, pretty);
+				} else {
+					index.writeIndex(path, pretty, queue);
+				}
+				printThroughput("index", path, writeStart);
 			} catch (IOException e) {
 				System.out.println("Unable to write index to file at: " + path);
 			}
 		}
 
+		if (parser.hasFlag("-save")) {
+			Path path = parser.getPath("-save", Path.of("index.bin"));
+			try {
+				index.writeBinary(path);
+			} catch (IOException e) {
+				System.out.println("Unable to write binary index to file at: " + path);
+			}
+		}
+
 		if (parser.hasFlag("-counts")) {
 			Path path = parser.getPath("-counts", Path.of("counts.json"));
 			try {
-				index.writeCounts(path);
+				index.writeCounts(path, pretty);
 			} catch (IOException e) {
 				System.out.println("Unable to write counts to file at: " + path);
 			}
@@ -60,35 +177,211 @@ public class Driver {
 
 		if (parser.hasFlag("-query") && parser.hasValue("-query")) {
 			try {
-				searchQueries = QueriesGenerator.uniqueQueryStems(parser.getPath("-query"));
+				searchQueries = queue == null ? QueriesGenerator.uniqueQueryStems(parser.getPath("-query"), cache)
+						: QueriesGenerator.uniqueQueryStems(parser.getPath("-query"), cache, queue);
 			} catch (IOException e) {
 				System.out.println("Query file (" + parser.getPath("-query") + ") could not be read. ");
 			}
 		}
 
+		ResultCache results = new ResultCache(index,
+				parser.hasFlag("-resultcache") ? parser.getInteger("-resultcache", ResultCache.DEFAULT_CAPACITY) : 0);
+
 		if (parser.hasFlag("-results")) {
 			Path path = parser.getPath("-results", Path.of("results.json"));
+			PartitionCoordinator coordinator = null;
+			SearchResultsGenerator searcher;
+			int limit = parser.hasFlag("-limit") ? parser.getInteger("-limit", SearchResultsGenerator.DEFAULT_LIMIT)
+					: Integer.MAX_VALUE;
 
-			if (parser.hasFlag("-exact")) {
-				for (Query searchQuery : searchQueries) {
-					searchResults.put(searchQuery, index.getExactResults(searchQuery));
+			if (parser.hasFlag("-partitions") && parser.hasValue("-partitions")) {
+				try {
+					coordinator = new PartitionCoordinator(PartitionCoordinator.parseAddresses(parser.getString("-partitions")));
+				} catch (IllegalArgumentException e) {
+					System.out.println("Invalid partition addresses: " + parser.getString("-partitions"));
+					coordinator = new PartitionCoordinator(List.of());
 				}
+				searcher = new DistributedSearchResultsGenerator(coordinator, limit);
 			} else {
-				for (Query searchQuery : searchQueries) {
-					searchResults.put(searchQuery, index.getPartialResults(searchQuery));
+				searcher = queue == null ? new SearchResultsGenerator(results, limit)
+						: new MultithreadedSearchResultsGenerator(results, queue, limit);
+			}
+
+			try {
+				searcher.search(searchQueries, parser.hasFlag("-exact"));
+			} catch (UncheckedIOException e) {
+				System.out.println("Unable to search partitions at: " + parser.getString("-partitions"));
+			}
+
+			if (coordinator == null && parser.hasFlag("-resultcache")) {
+				System.out.println("Result cache: " + results);
+			}
+
+			if (coordinator == null && limit != Integer.MAX_VALUE && index instanceof FrozenInvertedIndex) {
+				FrozenInvertedIndex frozen = (FrozenInvertedIndex) index;
+				System.out.printf("Pruned search: %d locations scored, %d postings skipped%n",
+						frozen.getEvaluated(), frozen.getSkipped());
+			}
+
+			if (coordinator != null) {
+				try {
+					coordinator.close();
+				} catch (IOException e) {
+					System.out.println("Unable to close connections to partitions at: " + parser.getString("-partitions"));
 				}
 			}
 
 			try {
-				SimpleJsonWriter.asNestedSearchIndex(searchResults, path);
+				Instant writeStart = Instant.now();
+				searcher.writeResults(path, pretty);
+				printThroughput("search results", path, writeStart);
 			} catch (IOException e) {
 				System.out.println("Unable to write search results to file at: " + path);
 			}
 		}
 
+		if (queue != null) {
+			queue.shutdown();
+		}
+
 		// calculate time elapsed and output
 		Duration elapsed = Duration.between(start, Instant.now());
 		double seconds = (double) elapsed.toMillis() / Duration.ofSeconds(1).toMillis();
 		System.out.printf("Elapsed: %f seconds%n", seconds);
+
+		if (parser.hasFlag("-serve")) {
+			String address = parser.getString("-serve", String.valueOf(DEFAULT_PORT));
+			try (PartitionServer server = new PartitionServer(results, PartitionCoordinator.parseAddress(address, "localhost"))) {
+				System.out.printf("Serving partition of %d files on port %d%n", index.getLocations().size(), server.getPort());
+				Thread.currentThread().join();
+			} catch (IOException | IllegalArgumentException e) {
+				System.out.println("Unable to serve partition at: " + address);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Removes every location from a loaded index that does not belong to one
+	 * partition of the files, so several processes loading the same index can
+	 * each serve a different partition. Indexes built from a path never hold
+	 * other partitions, since their files are skipped before being read.
+	 *
+	 * @param index     index to remove locations from
+	 * @param partition the partition to keep
+	 */
+	private static void keepPartition(InvertedIndex index, Partition partition) {
+		if (partition == Partition.ALL) {
+			return;
+		}
+
+		for (String location : new ArrayList<>(index.getLocations())) {
+			if (!partition.contains(location)) {
+				index.remove(location);
+			}
+		}
+	}
+
+	/**
+	 * Builds the index from every text file found in path, and reports how many
+	 * files were indexed per second. If the "-incremental" flag is present,
+	 * only files changed since the last build are indexed. If the "-pipeline"
+	 * flag is present, files are read, stemmed and merged in separate stages,
+	 * using as many stemming workers as the work queue has threads, and the
+	 * throughput of every stage is reported. Otherwise the work queue is used
+	 * if one is provided.
+	 *
+	 * @param parser    parsed command-line arguments
+	 * @param index     index to build; must be thread-safe if queue is provided
+	 * @param queue     work queue to build the index with, or null to build it
+	 *                  without threads
+	 * @param cache     cache of stems to build the index with
+	 * @param partition partition of the text files to index
+	 * @param path      path of the text files to index
+	 * @throws IOException if a file was not able to be read
+	 */
+	private static void build(ArgumentParser parser, InvertedIndex index, WorkQueue queue, StemCache cache, Partition partition, Path path) throws IOException {
+		InvertedIndexGenerator generator;
+		int threads = 1;
+
+		if (parser.hasFlag("-incremental")) {
+			generator = new IncrementalInvertedIndexGenerator(index, parser.getPath("-incremental", Path.of("manifest.tsv")), cache);
+		} else if (parser.hasFlag("-pipeline")) {
+			PipelinedInvertedIndexGenerator pipeline = new PipelinedInvertedIndexGenerator(index,
+					parser.getInteger("-readers", PipelinedInvertedIndexGenerator.DEFAULT_READERS),
+					queue == null ? WorkQueue.DEFAULT : queue.size(),
+					parser.getInteger("-pipeline", PipelinedInvertedIndexGenerator.DEFAULT_CAPACITY), cache);
+			generator = pipeline;
+			threads = pipeline.getThreads();
+		} else if (queue != null) {
+			generator = new MultithreadedInvertedIndexGenerator(index, queue, cache);
+			threads = queue.size();
+		} else {
+			generator = new InvertedIndexGenerator(index, cache);
+		}
+
+		generator.setPartition(partition);
+
+		Instant buildStart = Instant.now();
+		int files = generator.build(path);
+		double buildSeconds = seconds(buildStart);
+		System.out.printf("Built index from %d files using %d thread(s): %f seconds (%.2f files/second)%n",
+				files, threads, buildSeconds, files / buildSeconds);
+		System.out.println("Stem cache: " + cache);
+
+		if (generator instanceof PipelinedInvertedIndexGenerator) {
+			System.out.println(generator);
+		}
+
+		if (index instanceof CompactInvertedIndex) {
+			((CompactInvertedIndex) index).trimToSize();
+		}
+
+		if (index instanceof ShardedInvertedIndex) {
+			System.out.println("Shard sizes: " + Arrays.toString(((ShardedInvertedIndex) index).getShardSizes()));
+		}
+	}
+
+	/**
+	 * Reports how many megabytes per second were written to a file, or only how
+	 * long it took if the size of the file is not able to be read.
+	 *
+	 * @param what  description of what was written
+	 * @param path  path of the file written
+	 * @param start instant the file started being written
+	 */
+	private static void printThroughput(String what, Path path, Instant start) {
+		double seconds = seconds(start);
+
+		try {
+			double megabytes = Files.size(path) / (1024.0 * 1024.0);
+			System.out.printf("Wrote %s to %s: %.2f MB in %f seconds (%.2f MB/s)%n",
+					what, path, megabytes, seconds, megabytes / seconds);
+		} catch (IOException e) {
+			System.out.printf("Wrote %s to %s in %f seconds%n", what, path, seconds);
+		}
+	}
+
+	/**
+	 * Returns the number of seconds elapsed since start.
+	 *
+	 * @param start instant to measure from
+	 * @return seconds elapsed since start
+	 */
+	private static double seconds(Instant start) {
+		return (double) Duration.between(start, Instant.now()).toNanos() / Duration.ofSeconds(1).toNanos();
+	}
+
+	/**
+	 * Returns the number of bytes currently used on the heap, after asking the
+	 * garbage collector to free any unreachable objects first.
+	 *
+	 * @return approximate number of bytes used on the heap
+	 */
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Measures how much memory freezing an index saves and how fast the frozen
+ * index decodes its postings. The text files found in a path are indexed with
+ * the default storage engine, the index is frozen, and the heap used by each
+ * index is reported. Then every position of the frozen index is read back
+ * through {@link InvertedIndex#get(String, String)} a few times, and the
+ * number of postings decoded per second is reported for each round.
+ *
+ * @see FrozenInvertedIndex
+ */
+public class FreezeBenchmark {
+	/**
+	 * Number of times every posting is decoded.
+	 */
+	private static final int ROUNDS = 3;
+
+	/**
+	 * Runs the benchmark. The argument is the path of the text files to index.
+	 *
+	 * @param args path of the text files to index
+	 * @throws IOException if a file was not able to be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: java FreezeBenchmark path");
+			return;
+		}
+
+		long baseMemory = usedMemory();
+		InvertedIndex index = new InvertedIndex();
+		int files = new InvertedIndexGenerator(index).build(Path.of(args[0]));
+		long indexMemory = usedMemory() - baseMemory;
+
+		long start = System.nanoTime();
+		FrozenInvertedIndex frozen = index.freeze();
+		double freezeSeconds = (System.nanoTime() - start) / 1e9;
+		index = null;
+		long frozenMemory = usedMemory() - baseMemory;
+
+		long postings = 0;
+		for (String location : frozen.getLocations()) {
+			postings += frozen.getWordCount(location);
+		}
+
+		System.out.printf("Indexed %d files, %d words, %d postings; froze in %f seconds%n", files,
+				frozen.get().size(), postings, freezeSeconds);
+		System.out.printf("Heap: %d bytes before freezing (%.2f bytes/posting), %d bytes after (%.2f bytes/posting), %.1fx smaller%n",
+				indexMemory, (double) indexMemory / postings, frozenMemory, (double) frozenMemory / postings,
+				(double) indexMemory / frozenMemory);
+
+		for (int round = 0; round < ROUNDS; round++) {
+			start = System.nanoTime();
+			long decoded = 0;
+			long checksum = 0;
+
+			for (String word : frozen.get()) {
+				for (String location : frozen.get(word)) {
+					for (int position : frozen.get(word, location)) {
+						decoded++;
+						checksum += position;
+					}
+				}
+			}
+
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("Round %d: decoded %d postings in %f seconds (%.0f postings/second, checksum %d)%n",
+					round + 1, decoded, seconds, decoded / seconds, checksum);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes currently used on the heap, after asking the
+	 * garbage collector to run so unreachable objects are not counted.
+	 *
+	 * @return bytes of heap in use
+	 */
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,1184 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A read-only version of {@link InvertedIndex} meant for serving searches once
+ * a build has finished. Every posting list is delta-encoded and compressed
+ * with variable-byte encoding into buffers of at most 1 GiB each, so the
+ * postings are not limited to the 2 GiB a single buffer can hold, and is only
+ * decoded as it is iterated over. Locations are stored in sorted order and referenced by
+ * their index in that order, so posting lists decode in the same sorted order
+ * as the other index engines.
+ * <p>
+ * The postings of each word are stored as the number of locations, followed
+ * by the location id gap, number of positions, number of bytes used by the
+ * positions, and then the position gaps of each location. Since nothing is
+ * ever modified, this class is safe to search from multiple threads.
+ * <p>
+ * A frozen index can be written to a binary segment file with
+ * {@link #writeBinary(Path)} and opened again with {@link #open(Path)}. The
+ * postings of a segment are memory-mapped in chunks of at most 1 GiB when it
+ * is opened, so only the word and location dictionaries are read onto the
+ * heap; postings are decoded straight from the
+ * mapped file as they are searched.
+ * <p>
+ * The highest score any single location gets from each word is computed while
+ * the index is frozen and stored in its segment, so opening a segment never
+ * decodes every posting list. Searches limited to the best few results use
+ * these bounds to skip every location that can not possibly make it into
+ * those results, walking the posting lists of every search word together one
+ * location at a time (the WAND algorithm), and return exactly the results an
+ * unlimited search would have listed first.
+ *
+ * @see InvertedIndex#freeze()
+ */
+public class FrozenInvertedIndex extends InvertedIndex {
+	/**
+	 * Marks the start of a binary segment file ("IIDX")
+	 */
+	private static final int MAGIC = 0x49494458;
+
+	/**
+	 * Version of the binary segment format written by this class
+	 */
+	private static final int VERSION = 3;
+
+	/**
+	 * Postings are stored in chunks of 2 to the power of this many bytes
+	 */
+	private static final int CHUNK_BITS = 30;
+
+	/**
+	 * Most words a limited search walks together. Walking more words at once
+	 * costs more than counting them one at a time, so searches matching more
+	 * words, such as long queries or short prefixes, are not pruned
+	 */
+	private static final int MAX_PRUNED_TERMS = 64;
+
+	/**
+	 * Sorted words stored in the index
+	 */
+	private final String[] words;
+
+	/**
+	 * Start of each word's postings within postings, followed by the end of the
+	 * last word's postings
+	 */
+	private final long[] offsets;
+
+	/**
+	 * Compressed postings of every word, stored back to back
+	 */
+	private final Postings postings;
+
+	/**
+	 * Sorted locations stored in the index, indexed by location id
+	 */
+	private final String[] locations;
+
+	/**
+	 * Amount of words found in each location, indexed by location id
+	 */
+	private final int[] wordCounts;
+
+	/**
+	 * Highest score any location gets from each word alone, indexed the same
+	 * as words
+	 */
+	private final double[] upperBounds;
+
+	/**
+	 * Number of locations scored by limited searches
+	 */
+	private final LongAdder evaluated;
+
+	/**
+	 * Number of postings passed over by limited searches without being scored
+	 */
+	private final LongAdder skipped;
+
+	/**
+	 * Class constructor that compresses the contents of another index. The
+	 * words of the other index are read through {@link InvertedIndex#asMap()},
+	 * so each word's locations come sorted no matter how they are stored.
+	 *
+	 * @param index index whose contents will be compressed
+	 */
+	public FrozenInvertedIndex(InvertedIndex index) {
+		super(false);
+		this.locations = index.getLocations().toArray(new String[0]);
+		Arrays.sort(this.locations);
+		this.wordCounts = new int[locations.length];
+
+		HashMap<String, Integer> locationIds = new HashMap<>();
+		for (int id = 0; id < locations.length; id++) {
+			locationIds.put(locations[id], id);
+			wordCounts[id] = index.getWordCount(locations[id]);
+		}
+
+		var entries = index.asMap().entrySet();
+		this.words = new String[entries.size()];
+		this.offsets = new long[words.length + 1];
+		this.upperBounds = new double[words.length];
+
+		PostingsWriter buffer = new PostingsWriter();
+		int i = 0;
+
+		for (var entry : entries) {
+			words[i] = entry.getKey();
+			offsets[i] = buffer.size();
+			writeVByte(entry.getValue().size(), buffer);
+
+			int previousId = 0;
+			for (var locationEntry : entry.getValue().entrySet()) {
+				int id = locationIds.get(locationEntry.getKey());
+				Collection<Integer> positions = locationEntry.getValue();
+
+				int length = 0;
+				int previousPosition = 0;
+				for (int position : positions) {
+					length += lengthVByte(position - previousPosition);
+					previousPosition = position;
+				}
+
+				writeVByte(id - previousId, buffer);
+				writeVByte(positions.size(), buffer);
+				writeVByte(length, buffer);
+				upperBounds[i] = Math.max(upperBounds[i], (double) positions.size() / wordCounts[id]);
+
+				previousPosition = 0;
+				for (int position : positions) {
+					writeVByte(position - previousPosition, buffer);
+					previousPosition = position;
+				}
+				previousId = id;
+			}
+			i++;
+		}
+
+		offsets[words.length] = buffer.size();
+		this.postings = buffer.toPostings();
+		this.evaluated = new LongAdder();
+		this.skipped = new LongAdder();
+	}
+
+	/**
+	 * Class constructor that uses already compressed data, such as data read
+	 * from a binary segment file
+	 *
+	 * @param words       sorted words stored in the index
+	 * @param offsets     start of each word's postings, followed by the end of
+	 *                    the last word's postings
+	 * @param postings    compressed postings of every word
+	 * @param locations   sorted locations stored in the index
+	 * @param wordCounts  amount of words found in each location
+	 * @param upperBounds highest score any location gets from each word alone
+	 */
+	private FrozenInvertedIndex(String[] words, long[] offsets, Postings postings, String[] locations, int[] wordCounts,
+			double[] upperBounds) {
+		super(false);
+		this.words = words;
+		this.offsets = offsets;
+		this.postings = postings;
+		this.locations = locations;
+		this.wordCounts = wordCounts;
+		this.upperBounds = upperBounds;
+		this.evaluated = new LongAdder();
+		this.skipped = new LongAdder();
+	}
+
+	/**
+	 * Returns the number of locations scored by searches limited to their best
+	 * results.
+	 *
+	 * @return number of locations scored
+	 */
+	public long getEvaluated() {
+		return evaluated.sum();
+	}
+
+	/**
+	 * Returns the number of postings passed over without being scored by
+	 * searches limited to their best results, since no location they belonged
+	 * to could have made it into those results.
+	 *
+	 * @return number of postings skipped
+	 */
+	public long getSkipped() {
+		return skipped.sum();
+	}
+
+	/**
+	 * Writes this index to a binary segment file. The segment holds a header,
+	 * the location dictionary and word counts, the word dictionary, the offset
+	 * of each word's postings, the highest score any location gets from each
+	 * word, and finally the compressed postings.
+	 *
+	 * @param path file location to write to
+	 * @throws IOException if file is not able to be written to
+	 * @see #open(Path)
+	 */
+	@Override
+	public void writeBinary(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			out.writeInt(locations.length);
+			for (int id = 0; id < locations.length; id++) {
+				writeString(locations[id], out);
+				out.writeInt(wordCounts[id]);
+			}
+
+			out.writeInt(words.length);
+			for (String word : words) {
+				writeString(word, out);
+			}
+
+			for (long offset : offsets) {
+				out.writeLong(offset);
+			}
+
+			for (double upperBound : upperBounds) {
+				out.writeDouble(upperBound);
+			}
+
+			byte[] chunk = new byte[8192];
+			for (ByteBuffer postingsChunk : postings.chunks) {
+				ByteBuffer buffer = postingsChunk.duplicate();
+				buffer.clear();
+				while (buffer.hasRemaining()) {
+					int length = Math.min(chunk.length, buffer.remaining());
+					buffer.get(chunk, 0, length);
+					out.write(chunk, 0, length);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a String as its length in bytes followed by its UTF-8 bytes.
+	 *
+	 * @param text String to write
+	 * @param out  stream to write to
+	 * @throws IOException if unable to write to the stream
+	 */
+	private static void writeString(String text, DataOutputStream out) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a String written by {@link #writeString(String, DataOutputStream)}.
+	 *
+	 * @param in  stream to read from
+	 * @param max most bytes the String may use, such as the size of the file
+	 * @return String read
+	 * @throws IOException if unable to read from the stream, or the length read
+	 *                     is negative or larger than max
+	 */
+	private static String readString(DataInputStream in, long max) throws IOException {
+		byte[] bytes = new byte[readCount(in, max)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the number of items or bytes that follow in a segment file.
+	 *
+	 * @param in  stream to read from
+	 * @param max largest valid count, such as the size of the file
+	 * @return count read
+	 * @throws IOException if unable to read from the stream, or the count read
+	 *                     is negative or larger than max
+	 */
+	private static int readCount(DataInputStream in, long max) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > max) {
+			throw new IOException("Invalid count in index segment file: " + count);
+		}
+		return count;
+	}
+
+	/**
+	 * Opens a binary segment file written by {@link #writeBinary(Path)}. The word
+	 * and location dictionaries are read onto the heap, and the postings are
+	 * memory-mapped in chunks of at most 1 GiB, so segments larger than 2 GiB
+	 * can be opened.
+	 *
+	 * @param path segment file to open
+	 * @return read-only index backed by the segment file
+	 * @throws IOException if file is not able to be read or is not a segment file
+	 */
+	public static FrozenInvertedIndex open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					throw new IOException("Not an index segment file: " + path);
+				}
+			} catch (EOFException e) {
+				throw new IOException("Not an index segment file: " + path, e);
+			}
+
+			try {
+				long header = 12;
+				String[] locations = new String[readCount(in, size)];
+				int[] wordCounts = new int[locations.length];
+				for (int id = 0; id < locations.length; id++) {
+					locations[id] = readString(in, size);
+					wordCounts[id] = in.readInt();
+					header += 8 + locations[id].getBytes(StandardCharsets.UTF_8).length;
+				}
+
+				String[] words = new String[readCount(in, size)];
+				header += 4;
+				for (int i = 0; i < words.length; i++) {
+					words[i] = readString(in, size);
+					header += 4 + words[i].getBytes(StandardCharsets.UTF_8).length;
+				}
+
+				long[] offsets = new long[words.length + 1];
+				for (int i = 0; i < offsets.length; i++) {
+					offsets[i] = in.readLong();
+				}
+				header += 8L * offsets.length;
+
+				double[] upperBounds = new double[words.length];
+				for (int i = 0; i < upperBounds.length; i++) {
+					upperBounds[i] = in.readDouble();
+				}
+				header += 8L * upperBounds.length;
+
+				long length = size - header;
+				if (length != offsets[words.length]) {
+					throw new IOException("Index segment file is truncated: " + path);
+				}
+
+				ByteBuffer[] chunks = new ByteBuffer[(int) ((length + (1L << CHUNK_BITS) - 1) >>> CHUNK_BITS)];
+				for (int i = 0; i < chunks.length; i++) {
+					long chunkStart = (long) i << CHUNK_BITS;
+					chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, header + chunkStart,
+							Math.min(1L << CHUNK_BITS, length - chunkStart));
+				}
+
+				return new FrozenInvertedIndex(words, offsets, new Postings(chunks), locations, wordCounts, upperBounds);
+			} catch (EOFException e) {
+				throw new IOException("Index segment file is corrupt: " + path, e);
+			}
+		}
+	}
+
+	/**
+	 * Writes a non-negative value using variable-byte encoding, 7 bits per byte
+	 * starting from the lowest bits. The high bit of a byte is set when more
+	 * bytes follow.
+	 *
+	 * @param value  non-negative value to write
+	 * @param buffer buffer to write to
+	 */
+	private static void writeVByte(int value, PostingsWriter buffer) {
+		while ((value & ~0x7F) != 0) {
+			buffer.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer.write(value);
+	}
+
+	/**
+	 * Returns the number of bytes a non-negative value uses when written with
+	 * variable-byte encoding.
+	 *
+	 * @param value non-negative value to measure
+	 * @return number of bytes used
+	 * @see #writeVByte(int, PostingsWriter)
+	 */
+	public static int lengthVByte(int value) {
+		int length = 1;
+		while ((value & ~0x7F) != 0) {
+			length++;
+			value >>>= 7;
+		}
+		return length;
+	}
+
+	/**
+	 * Compressed postings stored in chunks of 2 to the power of
+	 * {@link #CHUNK_BITS} bytes, except for the last chunk, so the offset of a
+	 * byte may be larger than a single buffer can hold. Chunks are only read
+	 * with absolute reads, so any number of threads may read them at once.
+	 */
+	private static class Postings {
+		/**
+		 * Chunks of the postings, in order
+		 */
+		private final ByteBuffer[] chunks;
+
+		/**
+		 * Creates postings stored in chunks.
+		 *
+		 * @param chunks chunks of the postings, every one but the last holding
+		 *               exactly 2 to the power of {@link #CHUNK_BITS} bytes
+		 */
+		public Postings(ByteBuffer[] chunks) {
+			this.chunks = chunks;
+		}
+	}
+
+	/**
+	 * Collects compressed postings as they are written, starting a new chunk
+	 * every 2 to the power of {@link #CHUNK_BITS} bytes.
+	 */
+	private static class PostingsWriter {
+		/**
+		 * Chunks already filled
+		 */
+		private final ArrayList<ByteBuffer> chunks;
+
+		/**
+		 * Chunk being written
+		 */
+		private ByteArrayOutputStream chunk;
+
+		/**
+		 * Number of bytes in the chunks already filled
+		 */
+		private long filled;
+
+		/**
+		 * Creates an empty writer.
+		 */
+		public PostingsWriter() {
+			this.chunks = new ArrayList<>();
+			this.chunk = new ByteArrayOutputStream();
+			this.filled = 0;
+		}
+
+		/**
+		 * Writes one byte.
+		 *
+		 * @param b byte to write, in the lowest 8 bits
+		 */
+		public void write(int b) {
+			if (chunk.size() == 1 << CHUNK_BITS) {
+				chunks.add(ByteBuffer.wrap(chunk.toByteArray()));
+				filled += chunk.size();
+				chunk = new ByteArrayOutputStream();
+			}
+			chunk.write(b);
+		}
+
+		/**
+		 * Returns the number of bytes written.
+		 *
+		 * @return number of bytes written
+		 */
+		public long size() {
+			return filled + chunk.size();
+		}
+
+		/**
+		 * Returns every byte written as postings.
+		 *
+		 * @return postings written
+		 */
+		public Postings toPostings() {
+			ArrayList<ByteBuffer> all = new ArrayList<>(chunks);
+			all.add(ByteBuffer.wrap(chunk.toByteArray()));
+			return new Postings(all.toArray(new ByteBuffer[0]));
+		}
+	}
+
+	/**
+	 * Reads variable-byte encoded values from postings, starting at an offset
+	 * and moving on to the next chunk at the end of each one. Any number of
+	 * decoders may read the same postings at once.
+	 */
+	private static class Decoder {
+		/**
+		 * Postings to read from
+		 */
+		private final Postings postings;
+
+		/**
+		 * Number of the chunk holding the next byte to read
+		 */
+		private int chunkNumber;
+
+		/**
+		 * Chunk holding the next byte to read, or null past the last chunk
+		 */
+		private ByteBuffer chunk;
+
+		/**
+		 * Index of the next byte to read within chunk
+		 */
+		private int position;
+
+		/**
+		 * Creates a decoder reading postings from offset.
+		 *
+		 * @param postings postings to read from
+		 * @param offset   offset of the first byte to read
+		 */
+		public Decoder(Postings postings, long offset) {
+			this.postings = postings;
+			seek(offset);
+		}
+
+		/**
+		 * Moves to an offset.
+		 *
+		 * @param offset offset of the next byte to read
+		 */
+		private void seek(long offset) {
+			chunkNumber = (int) (offset >>> CHUNK_BITS);
+			chunk = chunkNumber < postings.chunks.length ? postings.chunks[chunkNumber] : null;
+			position = (int) (offset & ((1 << CHUNK_BITS) - 1));
+		}
+
+		/**
+		 * Returns the offset of the next byte to read.
+		 *
+		 * @return offset of the next byte
+		 */
+		public long offset() {
+			return ((long) chunkNumber << CHUNK_BITS) + position;
+		}
+
+		/**
+		 * Skips bytes without reading them.
+		 *
+		 * @param length number of bytes to skip
+		 */
+		public void skip(int length) {
+			if (chunk != null && (long) position + length <= chunk.limit()) {
+				position += length;
+			} else {
+				seek(offset() + length);
+			}
+		}
+
+		/**
+		 * Reads the next value.
+		 *
+		 * @return next value
+		 */
+		public int next() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				if (position == chunk.limit()) {
+					chunk = postings.chunks[++chunkNumber];
+					position = 0;
+				}
+				b = chunk.get(position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			return value;
+		}
+	}
+
+	/**
+	 * Iterates over the locations of a word without decoding their positions.
+	 */
+	private class LocationCursor {
+		/**
+		 * Decoder positioned at the next location
+		 */
+		private final Decoder decoder;
+
+		/**
+		 * Number of locations left to read
+		 */
+		private int remaining;
+
+		/**
+		 * Id of the current location
+		 */
+		private int id;
+
+		/**
+		 * Number of positions of the current location
+		 */
+		private int count;
+
+		/**
+		 * Offset of the positions of the current location
+		 */
+		private long positionsOffset;
+
+		/**
+		 * Creates a cursor over the locations of the word at index.
+		 *
+		 * @param index index of the word in words
+		 */
+		public LocationCursor(int index) {
+			this.decoder = new Decoder(postings, offsets[index]);
+			this.remaining = decoder.next();
+			this.id = 0;
+		}
+
+		/**
+		 * Moves to the next location, skipping the positions of the current one.
+		 *
+		 * @return true if there was a next location, false otherwise
+		 */
+		public boolean next() {
+			if (remaining == 0) {
+				return false;
+			}
+
+			remaining--;
+			id += decoder.next();
+			count = decoder.next();
+			int length = decoder.next();
+			positionsOffset = decoder.offset();
+			decoder.skip(length);
+			return true;
+		}
+
+		/**
+		 * Moves to the location with id, if it is stored.
+		 *
+		 * @param target id of the location to look for
+		 * @return true if the cursor is at target, false if it is not stored
+		 */
+		public boolean advance(int target) {
+			while (next()) {
+				if (id >= target) {
+					return id == target;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Returns the positions of the current location, decoded as they are
+		 * iterated over.
+		 *
+		 * @return positions of the current location
+		 */
+		public Collection<Integer> positions() {
+			long start = positionsOffset;
+			int size = count;
+
+			return new AbstractCollection<>() {
+				@Override
+				public Iterator<Integer> iterator() {
+					Decoder positionDecoder = new Decoder(postings, start);
+
+					return new Iterator<>() {
+						private int read = 0;
+						private int position = 0;
+
+						@Override
+						public boolean hasNext() {
+							return read < size;
+						}
+
+						@Override
+						public Integer next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							read++;
+							position += positionDecoder.next();
+							return position;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Finds the index of a word.
+	 *
+	 * @param word word to look for
+	 * @return index of word, or a negative number if it is not stored
+	 */
+	private int indexOf(String word) {
+		return Arrays.binarySearch(words, word);
+	}
+
+	/**
+	 * Finds the id of a location.
+	 *
+	 * @param location location to look for
+	 * @return id of location, or a negative number if it is not stored
+	 */
+	private int idOf(String location) {
+		return Arrays.binarySearch(locations, location);
+	}
+
+	/**
+	 * Always throws, since a frozen index can not be modified.
+	 *
+	 * @param word     ignored
+	 * @param location ignored
+	 * @param position ignored
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void add(String word, String location, int position) {
+		throw new UnsupportedOperationException("A frozen index can not be modified.");
+	}
+
+	/**
+	 * Always throws, since a frozen index can not be modified.
+	 *
+	 * @param other ignored
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addAll(InvertedIndex other) {
+		throw new UnsupportedOperationException("A frozen index can not be modified.");
+	}
+
+	/**
+	 * Always throws, since a frozen index can not be modified.
+	 *
+	 * @param other ignored
+	 * @param words ignored
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addAll(InvertedIndex other, Collection<String> words) {
+		throw new UnsupportedOperationException("A frozen index can not be modified.");
+	}
+
+	/**
+	 * Always throws, since a frozen index can not be modified.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void trackLocationWords() {
+		throw new UnsupportedOperationException("A frozen index can not be modified.");
+	}
+
+	/**
+	 * Always throws, since a frozen index can not be modified.
+	 *
+	 * @param location ignored
+	 * @return never returns
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(String location) {
+		throw new UnsupportedOperationException("A frozen index can not be modified.");
+	}
+
+	/**
+	 * Returns this index, since it is already frozen.
+	 *
+	 * @return this index
+	 */
+	@Override
+	public FrozenInvertedIndex freeze() {
+		return this;
+	}
+
+	@Override
+	protected Map<String, Map<String, Collection<Integer>>> asMap() {
+		return new AbstractMap<>() {
+			@Override
+			public Set<Entry<String, Map<String, Collection<Integer>>>> entrySet() {
+				return new AbstractSet<>() {
+					@Override
+					public Iterator<Entry<String, Map<String, Collection<Integer>>>> iterator() {
+						return new Iterator<>() {
+							private int index = 0;
+
+							@Override
+							public boolean hasNext() {
+								return index < words.length;
+							}
+
+							@Override
+							public Entry<String, Map<String, Collection<Integer>>> next() {
+								if (!hasNext()) {
+									throw new NoSuchElementException();
+								}
+
+								LinkedHashMap<String, Collection<Integer>> map = new LinkedHashMap<>();
+								LocationCursor cursor = new LocationCursor(index);
+
+								while (cursor.next()) {
+									map.put(locations[cursor.id], cursor.positions());
+								}
+
+								return Map.entry(words[index++], map);
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						return words.length;
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	protected Map<String, Integer> getWordCounts() {
+		LinkedHashMap<String, Integer> counts = new LinkedHashMap<>();
+
+		for (int id = 0; id < locations.length; id++) {
+			counts.put(locations[id], wordCounts[id]);
+		}
+
+		return counts;
+	}
+
+	@Override
+	public boolean contains(String word) {
+		return indexOf(word) >= 0;
+	}
+
+	@Override
+	public boolean contains(String word, String location) {
+		int index = indexOf(word);
+		int id = idOf(location);
+		return index >= 0 && id >= 0 && new LocationCursor(index).advance(id);
+	}
+
+	@Override
+	public boolean contains(String word, String location, int position) {
+		return get(word, location).contains(position);
+	}
+
+	@Override
+	public Collection<String> get() {
+		return Collections.unmodifiableList(Arrays.asList(words));
+	}
+
+	@Override
+	public Collection<String> get(String word) {
+		int index = indexOf(word);
+
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+
+		return new AbstractCollection<>() {
+			@Override
+			public Iterator<String> iterator() {
+				LocationCursor cursor = new LocationCursor(index);
+
+				return new Iterator<>() {
+					private int read = 0;
+
+					@Override
+					public boolean hasNext() {
+						return read < size();
+					}
+
+					@Override
+					public String next() {
+						if (!cursor.next()) {
+							throw new NoSuchElementException();
+						}
+						read++;
+						return locations[cursor.id];
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return new Decoder(postings, offsets[index]).next();
+			}
+		};
+	}
+
+	@Override
+	public Collection<Integer> get(String word, String location) {
+		int index = indexOf(word);
+		int id = idOf(location);
+
+		if (index >= 0 && id >= 0) {
+			LocationCursor cursor = new LocationCursor(index);
+
+			if (cursor.advance(id)) {
+				return cursor.positions();
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Collection<String> getLocations() {
+		return Collections.unmodifiableList(Arrays.asList(locations));
+	}
+
+	@Override
+	public Integer getWordCount(String location) {
+		int id = idOf(location);
+		return id < 0 ? 0 : wordCounts[id];
+	}
+
+	@Override
+	protected void addCounts(String word, Map<String, Integer> counts) {
+		int index = indexOf(word);
+
+		if (index >= 0) {
+			addCounts(index, counts);
+		}
+	}
+
+	/**
+	 * Adds the number of positions the word at index was found at in each of its
+	 * locations to the running count kept for that location.
+	 *
+	 * @param index  index of the word whose locations will be counted
+	 * @param counts running count of matches for each location
+	 */
+	private void addCounts(int index, Map<String, Integer> counts) {
+		LocationCursor cursor = new LocationCursor(index);
+
+		while (cursor.next()) {
+			counts.merge(locations[cursor.id], cursor.count, Integer::sum);
+		}
+	}
+
+	@Override
+	protected void addPartialCounts(String prefix, Map<String, Integer> counts) {
+		int index = indexOf(prefix);
+
+		if (index < 0) {
+			index = -(index + 1);
+		}
+
+		while (index < words.length && words[index].startsWith(prefix)) {
+			addCounts(index++, counts);
+		}
+	}
+
+	/**
+	 * Creates a sorted list of only the best results for searchQuery, looking
+	 * for exact word matches. Unless every location may be returned or there
+	 * are too many search words, the locations that can not make it into the
+	 * best results are skipped.
+	 *
+	 * @param searchQuery list of strings that are being searched for
+	 * @param limit       maximum number of results to return
+	 * @return list of at most limit result objects, in sorted order
+	 * @see #getTopResults(ArrayList, int)
+	 */
+	@Override
+	public ArrayList<Result> getExactResults(Query searchQuery, int limit) {
+		if (limit <= 0 || limit >= locations.length) {
+			return super.getExactResults(searchQuery, limit);
+		}
+
+		ArrayList<Integer> terms = new ArrayList<>();
+		for (String word : searchQuery.get()) {
+			int index = indexOf(word);
+
+			if (index >= 0) {
+				terms.add(index);
+			}
+		}
+
+		if (terms.size() > MAX_PRUNED_TERMS) {
+			return super.getExactResults(searchQuery, limit);
+		}
+
+		return getTopResults(terms, limit);
+	}
+
+	/**
+	 * Creates a sorted list of only the best results for searchQuery, looking
+	 * for partial word matches. Unless every location may be returned or the
+	 * search words are prefixes of too many words, the locations that can not
+	 * make it into the best results are skipped.
+	 *
+	 * @param searchQuery list of strings that are being searched for
+	 * @param limit       maximum number of results to return
+	 * @return list of at most limit result objects, in sorted order
+	 * @see #getTopResults(ArrayList, int)
+	 */
+	@Override
+	public ArrayList<Result> getPartialResults(Query searchQuery, int limit) {
+		if (limit <= 0 || limit >= locations.length) {
+			return super.getPartialResults(searchQuery, limit);
+		}
+
+		ArrayList<Integer> terms = new ArrayList<>();
+		for (String prefix : searchQuery.get()) {
+			int index = indexOf(prefix);
+
+			if (index < 0) {
+				index = -(index + 1);
+			}
+
+			while (index < words.length && words[index].startsWith(prefix)) {
+				terms.add(index++);
+			}
+		}
+
+		if (terms.size() > MAX_PRUNED_TERMS) {
+			return super.getPartialResults(searchQuery, limit);
+		}
+
+		return getTopResults(terms, limit);
+	}
+
+	/**
+	 * Finds the best results for the words at the provided indexes, walking
+	 * every word's locations together in order of location id, one location at
+	 * a time. A word found by several search words is counted once for each.
+	 * <p>
+	 * Once limit results have been found, the words are ordered by their
+	 * current location, and the highest scores of the words are added up in
+	 * that order until they could outrank the worst result kept. The location
+	 * of that word is the pivot: any location before it is only found in the
+	 * words already added up, so it can not outrank the worst result kept, and
+	 * every word before the pivot skips straight to it. A location is only
+	 * scored once every word before the pivot has reached it. Since a location
+	 * with the same rounded score as the worst result kept could still outrank
+	 * it by count or location, a location is only skipped if its score would
+	 * round strictly below.
+	 *
+	 * @param terms indexes of the words to search for
+	 * @param limit maximum number of results to return
+	 * @return sorted list of at most limit result objects
+	 * @see Result#mayBeOutrankedBy(double)
+	 */
+	private ArrayList<Result> getTopResults(ArrayList<Integer> terms, int limit) {
+		LocationCursor[] cursors = new LocationCursor[terms.size()];
+		double[] bounds = new double[terms.size()];
+		int active = 0;
+
+		for (int index : terms) {
+			LocationCursor cursor = new LocationCursor(index);
+
+			if (cursor.next()) {
+				cursors[active] = cursor;
+				bounds[active] = upperBounds[index];
+				active++;
+			}
+		}
+
+		PriorityQueue<Result> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
+		long scored = 0;
+		long passed = 0;
+
+		while (active > 0) {
+			// cursors only move forward a little at a time, so they stay nearly sorted
+			for (int i = 1; i < active; i++) {
+				LocationCursor cursor = cursors[i];
+				double bound = bounds[i];
+				int j = i - 1;
+
+				while (j >= 0 && cursors[j].id > cursor.id) {
+					cursors[j + 1] = cursors[j];
+					bounds[j + 1] = bounds[j];
+					j--;
+				}
+
+				cursors[j + 1] = cursor;
+				bounds[j + 1] = bound;
+			}
+
+			int pivot = 0;
+
+			if (best.size() == limit) {
+				Result worst = best.peek();
+				double bound = 0;
+
+				while (pivot < active) {
+					bound += bounds[pivot];
+					if (worst.mayBeOutrankedBy(bound)) {
+						break;
+					}
+					pivot++;
+				}
+
+				if (pivot == active) {
+					break;
+				}
+			}
+
+			int target = cursors[pivot].id;
+			boolean skipping = cursors[0].id != target;
+
+			if (!skipping) {
+				int count = 0;
+				pivot = 0;
+				while (pivot < active && cursors[pivot].id == target) {
+					count += cursors[pivot].count;
+					pivot++;
+				}
+
+				Result result = new Result(locations[target].replace("\\", "/"), count, (double) count / wordCounts[target]);
+				scored++;
+
+				if (best.size() < limit) {
+					best.add(result);
+				} else if (result.compareTo(best.peek()) < 0) {
+					best.poll();
+					best.add(result);
+				}
+
+				// every cursor at the scored location moves past it
+				target++;
+			}
+
+			for (int i = pivot - 1; i >= 0; i--) {
+				LocationCursor cursor = cursors[i];
+				boolean more = true;
+
+				while (more && cursor.id < target) {
+					if (skipping) {
+						passed++;
+					}
+					more = cursor.next();
+				}
+
+				if (!more) {
+					active--;
+					cursors[i] = cursors[active];
+					bounds[i] = bounds[active];
+				}
+			}
+		}
+
+		evaluated.add(scored);
+		skipped.add(passed);
+
+		ArrayList<Result> results = new ArrayList<>(best);
+		Collections.sort(results);
+		return results;
+	}
+}
@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Checks that incremental builds give exactly the same index as rebuilding
+ * from scratch. A small corpus is written to a temporary directory and built
+ * incrementally, then files are added, modified and deleted before building
+ * incrementally again, both in the same index and in a new index loaded from
+ * the index.json of the first build. After every build, the words, locations,
+ * positions and word counts of the index are compared with a full rebuild of
+ * the directory. Every storage engine that can remove locations is checked.
+ * <p>
+ * Exits with status 1 if any check fails.
+ *
+ * @see IncrementalInvertedIndexGenerator
+ * @see InvertedIndex#remove(String)
+ */
+public class IncrementalBuildCheck {
+	/**
+	 * Number of checks that failed.
+	 */
+	private static int failures = 0;
+
+	/**
+	 * Runs every check.
+	 *
+	 * @param args unused
+	 * @throws IOException if the temporary corpus was not able to be written
+	 */
+	public static void main(String[] args) throws IOException {
+		Map<String, Supplier<InvertedIndex>> engines = new LinkedHashMap<>();
+		engines.put("default", InvertedIndex::new);
+		engines.put("compact", CompactInvertedIndex::new);
+		engines.put("thread-safe", ThreadSafeInvertedIndex::new);
+		engines.put("sharded", () -> new ShardedInvertedIndex(4));
+
+		for (var engine : engines.entrySet()) {
+			Path dir = Files.createTempDirectory("incremental");
+			try {
+				check(engine.getKey(), engine.getValue(), dir);
+			} finally {
+				delete(dir);
+			}
+		}
+
+		if (failures > 0) {
+			System.out.println(failures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Builds a corpus incrementally with one storage engine, changes it, and
+	 * compares every build with a full rebuild.
+	 *
+	 * @param name   name of the storage engine
+	 * @param engine creates empty indexes of the storage engine
+	 * @param dir    empty directory to write the corpus to
+	 * @throws IOException if the corpus was not able to be written or read
+	 */
+	private static void check(String name, Supplier<InvertedIndex> engine, Path dir) throws IOException {
+		Path corpus = Files.createDirectories(dir.resolve("corpus"));
+		Path manifest = dir.resolve("manifest.tsv");
+		Path reloadManifest = dir.resolve("reload.tsv");
+		Path json = dir.resolve("index.json");
+
+		write(corpus.resolve("apple.txt"), "The quick brown fox jumps over the lazy dog.");
+		write(corpus.resolve("banana.txt"), "Apples and bananas, apples and cherries.");
+		write(corpus.resolve("cherry.txt"), "Cherry pickers pick cherries quickly.");
+		write(corpus.resolve("unchanged.txt"), "Nothing about this file will change.");
+		write(Files.createDirectories(corpus.resolve("nested")).resolve("deleted.text"), "Gone tomorrow, apple today.");
+
+		InvertedIndex index = engine.get();
+		int files = new IncrementalInvertedIndexGenerator(index, manifest).build(corpus);
+		expect(name + ": first build indexes every file", files == 5);
+		compare(name + ": first build", index, corpus);
+
+		files = new IncrementalInvertedIndexGenerator(index, manifest).build(corpus);
+		expect(name + ": unchanged build indexes nothing", files == 0);
+		compare(name + ": unchanged build", index, corpus);
+
+		index.writeIndex(json);
+		Files.copy(manifest, reloadManifest, StandardCopyOption.REPLACE_EXISTING);
+
+		// one file grows, one keeps its size and only differs by content
+		FileTime modified = Files.getLastModifiedTime(corpus.resolve("cherry.txt"));
+		write(corpus.resolve("apple.txt"), "The quick brown fox jumps over the lazy dog twice, and the dog sleeps.");
+		write(corpus.resolve("cherry.txt"), "Cherry pickers pick bananas quickly.");
+		Files.setLastModifiedTime(corpus.resolve("cherry.txt"), FileTime.fromMillis(modified.toMillis() + 2000));
+		write(corpus.resolve("added.txt"), "A new file about apples and foxes.");
+		Files.delete(corpus.resolve("nested").resolve("deleted.text"));
+		Files.delete(corpus.resolve("banana.txt"));
+
+		files = new IncrementalInvertedIndexGenerator(index, manifest).build(corpus);
+		expect(name + ": changed build indexes only added and modified files", files == 3);
+		compare(name + ": changed build", index, corpus);
+		expect(name + ": deleted file is no longer stored", !index.remove(corpus.resolve("banana.txt").toString()));
+
+		InvertedIndex reloaded = engine.get();
+		reloaded.trackLocationWords();
+		SimpleJsonReader.asInvertedIndex(json, reloaded);
+		files = new IncrementalInvertedIndexGenerator(reloaded, reloadManifest).build(corpus);
+		expect(name + ": reloaded build indexes only added and modified files", files == 3);
+		compare(name + ": reloaded build", reloaded, corpus);
+	}
+
+	/**
+	 * Compares an index with a full rebuild of the corpus.
+	 *
+	 * @param check  description of the check
+	 * @param index  index to compare
+	 * @param corpus directory of the corpus
+	 * @throws IOException if the corpus was not able to be read
+	 */
+	private static void compare(String check, InvertedIndex index, Path corpus) throws IOException {
+		InvertedIndex rebuilt = new InvertedIndex();
+		new InvertedIndexGenerator(rebuilt).build(corpus);
+		expect(check + " equals a full rebuild", index.toString().equals(rebuilt.toString()));
+	}
+
+	/**
+	 * Reports whether a check passed, counting it if it failed.
+	 *
+	 * @param check  description of the check
+	 * @param passed true if the check passed
+	 */
+	private static void expect(String check, boolean passed) {
+		System.out.println((passed ? "ok      " : "FAILED  ") + check);
+		if (!passed) {
+			failures++;
+		}
+	}
+
+	/**
+	 * Writes text to a file, replacing anything already in it.
+	 *
+	 * @param file file to write
+	 * @param text text to write
+	 * @throws IOException if the file was not able to be written
+	 */
+	private static void write(Path file, String text) throws IOException {
+		Files.writeString(file, text, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Deletes a directory along with everything in it.
+	 *
+	 * @param dir directory to delete
+	 * @throws IOException if the directory was not able to be deleted
+	 */
+	private static void delete(Path dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+}
@@ -0,0 +1,252 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Incremental version of {@link InvertedIndexGenerator}. The size,
+ * modification time, content hash and word count of every file indexed are
+ * remembered in a manifest file, so later builds of the same path only stem
+ * files that were added or modified since the last build. Files that were
+ * deleted are removed from the index.
+ * <p>
+ * The index should already hold the results of the last build, for example
+ * by loading the index.json written by it. Any file whose word count in the
+ * index does not match the manifest is indexed again, so starting from an
+ * empty index still produces a complete index. The index starts remembering
+ * the words of each location, so removing a file only visits its own words.
+ *
+ * @see InvertedIndex#remove(String)
+ * @see InvertedIndex#trackLocationWords()
+ */
+public class IncrementalInvertedIndexGenerator extends InvertedIndexGenerator {
+	/**
+	 * InvertedIndex object being updated.
+	 */
+	private final InvertedIndex index;
+
+	/**
+	 * Path of the manifest file remembering the state of every file indexed.
+	 */
+	private final Path manifest;
+
+	/**
+	 * IncrementalInvertedIndexGenerator constructor. Takes in an InvertedIndex
+	 * object to update, and the manifest file of the last build.
+	 *
+	 * @param index    InvertedIndex object all build operations will affect
+	 * @param manifest manifest file read before and written after every build
+	 */
+	public IncrementalInvertedIndexGenerator(InvertedIndex index, Path manifest) {
+		this(index, manifest, new StemCache());
+	}
+
+	/**
+	 * IncrementalInvertedIndexGenerator constructor. Takes in an InvertedIndex
+	 * object to update, the manifest file of the last build, and the cache of
+	 * stems to use.
+	 *
+	 * @param index    InvertedIndex object all build operations will affect
+	 * @param manifest manifest file read before and written after every build
+	 * @param cache    cache of stems, which may be shared with other generators
+	 */
+	public IncrementalInvertedIndexGenerator(InvertedIndex index, Path manifest, StemCache cache) {
+		super(index, cache);
+		this.index = index;
+		this.manifest = manifest;
+		index.trackLocationWords();
+	}
+
+	/**
+	 * Compares every text file found in inputFile against the manifest of the
+	 * last build as soon as it is found, stems only the files that were added
+	 * or modified, and removes files that were deleted. Files outside the
+	 * partition of this generator are removed like deleted files. The manifest
+	 * is then updated.
+	 *
+	 * @param inputFile File path that is a inverted word index is being generated for
+	 * @return number of text files added to index
+	 * @throws IOException if a file or the manifest was not able to be read or written
+	 */
+	@Override
+	public int build(Path inputFile) throws IOException {
+		TreeMap<String, FileState> previous = readManifest();
+		TreeMap<String, FileState> current = new TreeMap<>();
+		int files = 0;
+
+		try (Stream<Path> found = TextFileFinder.find(inputFile, getPartition())) {
+			Iterator<Path> iterator = found.iterator();
+			while (iterator.hasNext()) {
+				Path file = iterator.next();
+				String location = file.toString();
+				FileState last = previous.remove(location);
+				FileState state = FileState.of(file, last);
+
+				if (last == null || !last.hash.equals(state.hash) || index.getWordCount(location) != last.words) {
+					index.remove(location);
+					addFile(file, index, getStemCache());
+					++files;
+				}
+
+				current.put(location, new FileState(state.size, state.modified, state.hash, index.getWordCount(location)));
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		for (String deleted : previous.keySet()) {
+			index.remove(deleted);
+		}
+
+		writeManifest(current);
+		return files;
+	}
+
+	/**
+	 * Reads the manifest of the last build.
+	 *
+	 * @return state of every file indexed by the last build, or an empty map if
+	 * there is no manifest yet
+	 * @throws IOException if the manifest was not able to be read
+	 */
+	private TreeMap<String, FileState> readManifest() throws IOException {
+		TreeMap<String, FileState> states = new TreeMap<>();
+
+		if (!Files.exists(manifest)) {
+			return states;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", 5);
+
+				if (fields.length != 5) {
+					throw new IOException("Invalid line in manifest " + manifest + ": " + line);
+				}
+
+				try {
+					states.put(fields[4], new FileState(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2], Integer.parseInt(fields[3])));
+				} catch (NumberFormatException e) {
+					throw new IOException("Invalid line in manifest " + manifest + ": " + line, e);
+				}
+			}
+		}
+
+		return states;
+	}
+
+	/**
+	 * Writes the manifest of this build. Each line holds the size, modification
+	 * time, content hash and word count of a file, followed by its location.
+	 *
+	 * @param states state of every file indexed by this build
+	 * @throws IOException if the manifest was not able to be written
+	 */
+	private void writeManifest(Map<String, FileState> states) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8)) {
+			for (var entry : states.entrySet()) {
+				FileState state = entry.getValue();
+				writer.write(state.size + "\t" + state.modified + "\t" + state.hash + "\t" + state.words + "\t" + entry.getKey());
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * The state of a file at the time it was indexed.
+	 */
+	private static class FileState {
+		/**
+		 * Size of the file in bytes.
+		 */
+		private final long size;
+
+		/**
+		 * Last modification time of the file in milliseconds.
+		 */
+		private final long modified;
+
+		/**
+		 * SHA-256 hash of the file's content, in hexadecimal.
+		 */
+		private final String hash;
+
+		/**
+		 * Number of words indexed for the file.
+		 */
+		private final int words;
+
+		/**
+		 * Creates a file state.
+		 *
+		 * @param size     size of the file in bytes
+		 * @param modified last modification time of the file in milliseconds
+		 * @param hash     hash of the file's content
+		 * @param words    number of words indexed for the file
+		 */
+		public FileState(long size, long modified, String hash, int words) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+			this.words = words;
+		}
+
+		/**
+		 * Reads the current state of a file. The content is only hashed when its
+		 * size or modification time differs from its last state.
+		 *
+		 * @param file file to read the state of
+		 * @param last state of the file at the last build, or null if it is new
+		 * @return current state of the file, without a word count
+		 * @throws IOException if the file was not able to be read
+		 */
+		public static FileState of(Path file, FileState last) throws IOException {
+			long size = Files.size(file);
+			long modified = Files.getLastModifiedTime(file).toMillis();
+
+			if (last != null && last.size == size && last.modified == modified) {
+				return new FileState(size, modified, last.hash, 0);
+			}
+
+			return new FileState(size, modified, hash(file), 0);
+		}
+
+		/**
+		 * Computes the SHA-256 hash of a file's content.
+		 *
+		 * @param file file to hash
+		 * @return hash in hexadecimal
+		 * @throws IOException if the file was not able to be read
+		 */
+		private static String hash(Path file) throws IOException {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not available.", e);
+			}
+
+			try (InputStream in = Files.newInputStream(file)) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+			}
+
+			return String.format("%064x", new BigInteger(1, digest.digest()));
+		}
+	}
+}
@@ -19,12 +19,40 @@ public class InvertedIndex {
 	 */
 	private final TreeMap<String, Integer> fileWordCounts;
 
+	/**
+	 * A TreeMap storage structure that holds a file mapped to the stemmed words
+	 * found in that file, so a file can be removed without visiting every word.
+	 * Null until locations are first tracked or removed
+	 *
+	 * @see #trackLocationWords()
+	 */
+	private TreeMap<String, TreeSet<String>> locationWords;
+
+	/**
+	 * Number of times the index has been modified, so cached search results can
+	 * tell when they are out of date
+	 */
+	private long modifications;
+
 	/**
 	 * Class constructor that handles initializing invertedIndex and fileWordCounts
 	 */
 	public InvertedIndex() {
-		this.invertedIndex = new TreeMap<>();
-		this.fileWordCounts = new TreeMap<>();
+		this(true);
+	}
+
+	/**
+	 * Class constructor for subclasses that may keep their words, locations and
+	 * word counts in their own structures instead. Such subclasses must override
+	 * every method that reads or modifies invertedIndex or fileWordCounts, which
+	 * are then never allocated.
+	 *
+	 * @param storage true to initialize invertedIndex and fileWordCounts, false
+	 *                if the subclass stores its own
+	 */
+	protected InvertedIndex(boolean storage) {
+		this.invertedIndex = storage ? new TreeMap<>() : null;
+		this.fileWordCounts = storage ? new TreeMap<>() : null;
 	}
 
 	/**
@@ -36,8 +64,11 @@ public class InvertedIndex {
 	 * @param position   	location within location word was found in
 	 */
 	public void add(String word, String location, int position) {
+		modified();
 		invertedIndex.putIfAbsent(word, new TreeMap<>());
-		invertedIndex.get(word).putIfAbsent(location, new TreeSet<>());
+		if (invertedIndex.get(word).putIfAbsent(location, new TreeSet<>()) == null && locationWords != null) {
+			addLocationWord(location, word);
+		}
 
 		if (invertedIndex.get(word).get(location).add(position)) {
 			Integer count;
@@ -47,28 +78,257 @@ public class InvertedIndex {
 		}
 	}
 
+	/**
+	 * Adds every word, location and position stored in other to this index.
+	 * Word counts are only increased for positions that were not already
+	 * present, the same way {@link #add(String, String, int)} does.
+	 *
+	 * @param other index whose data will be merged into this index
+	 */
+	public void addAll(InvertedIndex other) {
+		addAll(other, other.get());
+	}
+
+	/**
+	 * Adds the locations and positions stored in other for each of the words
+	 * provided to this index, the same way {@link #addAll(InvertedIndex)} does.
+	 *
+	 * @param other index whose data will be merged into this index
+	 * @param words words of other to merge
+	 */
+	public void addAll(InvertedIndex other, Collection<String> words) {
+		modified();
+
+		for (String word : words) {
+			TreeMap<String, TreeSet<Integer>> locations = invertedIndex.get(word);
+
+			if (locations == null) {
+				locations = new TreeMap<>();
+				invertedIndex.put(word, locations);
+			}
+
+			for (String location : other.get(word)) {
+				Collection<Integer> otherPositions = other.get(word, location);
+				TreeSet<Integer> positions = locations.get(location);
+				int added;
+
+				if (positions == null) {
+					positions = new TreeSet<>(otherPositions);
+					locations.put(location, positions);
+					if (locationWords != null) {
+						addLocationWord(location, word);
+					}
+					added = positions.size();
+				} else {
+					int before = positions.size();
+					positions.addAll(otherPositions);
+					added = positions.size() - before;
+				}
+
+				if (added > 0) {
+					fileWordCounts.merge(location, added, Integer::sum);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts remembering the words found in each location, so that
+	 * {@link #remove(String)} only has to visit the words of the location it
+	 * removes. The words of the locations already stored are found with one
+	 * pass over the index. This is only worth its memory for indexes that will
+	 * have locations removed, such as those updated by incremental builds, and
+	 * does nothing if the words are already remembered.
+	 *
+	 * @see IncrementalInvertedIndexGenerator
+	 */
+	public void trackLocationWords() {
+		if (locationWords != null) {
+			return;
+		}
+
+		locationWords = new TreeMap<>();
+		for (var entry : invertedIndex.entrySet()) {
+			for (String location : entry.getValue().keySet()) {
+				addLocationWord(location, entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Records that word was found in location.
+	 *
+	 * @param location location word was found in
+	 * @param word     word found in location
+	 */
+	private void addLocationWord(String location, String word) {
+		TreeSet<String> words = locationWords.get(location);
+
+		if (words == null) {
+			words = new TreeSet<>();
+			locationWords.put(location, words);
+		}
+
+		words.add(word);
+	}
+
+	/**
+	 * Removes a location, along with every position stored for it and its word
+	 * count. Only the words found in location are visited. Words that are no
+	 * longer found in any location are removed from the index. The words of
+	 * every location start being tracked first if they are not already.
+	 *
+	 * @param location location to remove
+	 * @return true if location was stored in the index, false otherwise
+	 * @see #trackLocationWords()
+	 */
+	public boolean remove(String location) {
+		trackLocationWords();
+		TreeSet<String> words = locationWords.remove(location);
+
+		if (words == null) {
+			return false;
+		}
+
+		modified();
+		for (String word : words) {
+			TreeMap<String, TreeSet<Integer>> locations = invertedIndex.get(word);
+			locations.remove(location);
+
+			if (locations.isEmpty()) {
+				invertedIndex.remove(word);
+			}
+		}
+
+		fileWordCounts.remove(location);
+		return true;
+	}
+
+	/**
+	 * Records that the index has been modified. Every method that adds to or
+	 * removes from the index must call this, including those of subclasses
+	 * that do not call the methods of this class.
+	 */
+	protected void modified() {
+		modifications++;
+	}
+
+	/**
+	 * Returns the number of times the index has been modified. Any search
+	 * result found while this number was different may be out of date.
+	 *
+	 * @return number of modifications
+	 * @see ResultCache
+	 */
+	public long getModifications() {
+		return modifications;
+	}
+
 	/**
 	 * Writes invertedIndex as pretty JSON to destination defined
-	 * by path. Calls SimpleJsonWriter in order to do so.
+	 * by path.
 	 *
 	 * @param path file location to write to
 	 * @throws IOException if file is not found are able to be written to
-	 * @see SimpleJsonWriter#asInvertedIndex(TreeMap, Path)
+	 * @see #writeIndex(Path, boolean)
 	 */
 	public void writeIndex(Path path) throws IOException {
-		SimpleJsonWriter.asInvertedIndex(invertedIndex, path);
+		writeIndex(path, true);
+	}
+
+	/**
+	 * Writes invertedIndex as pretty or compact JSON to destination defined
+	 * by path. Calls StreamingJsonWriter in order to do so.
+	 *
+	 * @param path   file location to write to
+	 * @param pretty true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if file is not found are able to be written to
+	 * @see StreamingJsonWriter#asInvertedIndex(Map, Path, boolean)
+	 */
+	public void writeIndex(Path path, boolean pretty) throws IOException {
+		StreamingJsonWriter.asInvertedIndex(asMap(), path, pretty);
+	}
+
+	/**
+	 * Writes invertedIndex as pretty or compact JSON to destination defined
+	 * by path, using the work queue to render ranges of words at the same time.
+	 * The file written is exactly the same as {@link #writeIndex(Path, boolean)}.
+	 *
+	 * @param path   file location to write to
+	 * @param pretty true to write pretty JSON, false to write compact JSON
+	 * @param queue  work queue to render the words with
+	 * @throws IOException if file is not found are able to be written to
+	 * @see StreamingJsonWriter#asInvertedIndex(Map, Path, boolean, WorkQueue)
+	 */
+	public void writeIndex(Path path, boolean pretty, WorkQueue queue) throws IOException {
+		StreamingJsonWriter.asInvertedIndex(asMap(), path, pretty, queue);
+	}
+
+	/**
+	 * Writes the index to a binary segment file that can later be opened with
+	 * {@link FrozenInvertedIndex#open(Path)}, instead of rebuilding the index.
+	 *
+	 * @param path file location to write to
+	 * @throws IOException if file is not able to be written to
+	 * @see FrozenInvertedIndex#writeBinary(Path)
+	 */
+	public void writeBinary(Path path) throws IOException {
+		freeze().writeBinary(path);
 	}
 
 	/**
 	 * Writes fileWordCounts as pretty JSON to destination defined
-	 * by path. Calls SimpleJsonWriter in order to do so.
+	 * by path.
 	 *
 	 * @param path file location to write to
 	 * @throws IOException if file is not found are able to be written to
-	 * @see SimpleJsonWriter#asObject(Map, Path)
+	 * @see #writeCounts(Path, boolean)
 	 */
 	public void writeCounts(Path path) throws IOException {
-		SimpleJsonWriter.asObject(fileWordCounts, path);
+		writeCounts(path, true);
+	}
+
+	/**
+	 * Writes fileWordCounts as pretty or compact JSON to destination defined
+	 * by path. Calls StreamingJsonWriter in order to do so.
+	 *
+	 * @param path   file location to write to
+	 * @param pretty true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if file is not found are able to be written to
+	 * @see StreamingJsonWriter#asObject(Map, Path, boolean)
+	 */
+	public void writeCounts(Path path, boolean pretty) throws IOException {
+		StreamingJsonWriter.asObject(getWordCounts(), path, pretty);
+	}
+
+	/**
+	 * Returns the index as a sorted map of words to locations to positions,
+	 * which is the structure written out by {@link #writeIndex(Path)}.
+	 *
+	 * @return unmodifiable sorted map of words to locations to positions
+	 */
+	protected Map<String, ? extends Map<String, ? extends Collection<Integer>>> asMap() {
+		return Collections.unmodifiableMap(invertedIndex);
+	}
+
+	/**
+	 * Returns the word count of every location, sorted by location, which is the
+	 * structure written out by {@link #writeCounts(Path)}.
+	 *
+	 * @return unmodifiable sorted map of locations to word counts
+	 */
+	protected Map<String, Integer> getWordCounts() {
+		return Collections.unmodifiableMap(fileWordCounts);
+	}
+
+	/**
+	 * Converts this index into a read-only {@link FrozenInvertedIndex}, where
+	 * every posting list is compressed. This index is left unchanged.
+	 *
+	 * @return compressed, read-only copy of this index
+	 */
+	public FrozenInvertedIndex freeze() {
+		return new FrozenInvertedIndex(this);
 	}
 
 	/**
@@ -149,6 +409,15 @@ public class InvertedIndex {
 		}
 	}
 
+	/**
+	 * Gets the set of locations that have at least one word stored in the index.
+	 *
+	 * @return unmodifiable collection of locations in fileWordCounts
+	 */
+	public Collection<String> getLocations() {
+		return Collections.unmodifiableSet(fileWordCounts.keySet());
+	}
+
 	/**
 	 * Gets the word count for location stored in fileWordCounts
 	 *
@@ -163,78 +432,164 @@ public class InvertedIndex {
 	 * Creates a list of results objects that contain locations words from searchQuery
 	 * were found in, number of occurrences, and a score generated for that result. This
 	 * method searches the invertedIndex already generated to generate data, looking for
-	 * exact word matches.
+	 * exact word matches. Only the locations of each search word are visited, rather
+	 * than every location in the index.
 	 *
 	 * @param searchQuery list of strings that are being searched for
 	 * @return list of result objects, containing relevant result data
+	 * @see #getExactResults(Query, int)
 	 */
 	public ArrayList<Result> getExactResults(Query searchQuery) {
-		ArrayList<Result> results = new ArrayList<>();
+		return getExactResults(searchQuery, Integer.MAX_VALUE);
+	}
 
-		for (String location : fileWordCounts.keySet()) {
-			Result newResult = new Result();
+	/**
+	 * Creates a sorted list of only the best results for searchQuery, looking
+	 * for exact word matches. Every matching location is still counted, but at
+	 * most limit results are kept while the rest are discarded, so no more
+	 * than limit results are ever sorted.
+	 *
+	 * @param searchQuery list of strings that are being searched for
+	 * @param limit       maximum number of results to return
+	 * @return list of at most limit result objects, in sorted order
+	 * @see #getExactResults(Query)
+	 */
+	public ArrayList<Result> getExactResults(Query searchQuery, int limit) {
+		HashMap<String, Integer> counts = new HashMap<>();
 
-			newResult.put("where", String.valueOf(location).replace("\\", "/"));
+		for (String searchWord : searchQuery.get()) {
+			addCounts(searchWord, counts);
+		}
 
-			int count = 0;
-			for (String searchWord : searchQuery.get()) {
-				count += this.get(searchWord, location).size();
+		return makeResults(counts, limit);
+	}
+
+	/**
+	 * Adds the number of positions word was found at in each of its locations
+	 * to the running count kept for that location.
+	 *
+	 * @param word   word whose locations will be counted
+	 * @param counts running count of matches for each location
+	 */
+	protected void addCounts(String word, Map<String, Integer> counts) {
+		TreeMap<String, TreeSet<Integer>> locations = invertedIndex.get(word);
+
+		if (locations != null) {
+			for (var entry : locations.entrySet()) {
+				counts.merge(entry.getKey(), entry.getValue().size(), Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Creates a sorted list of the best result objects from the number of
+	 * matches found in each location. If there are more locations than limit,
+	 * the best results seen so far are kept in a heap holding at most limit
+	 * results, with the worst of them on top, so each location only needs to
+	 * be compared with the worst result kept.
+	 *
+	 * @param counts number of matches found for each location
+	 * @param limit  maximum number of results to return
+	 * @return sorted list of at most limit result objects
+	 */
+	private ArrayList<Result> makeResults(Map<String, Integer> counts, int limit) {
+		if (limit <= 0) {
+			return new ArrayList<>();
+		}
+
+		if (counts.size() <= limit) {
+			ArrayList<Result> results = new ArrayList<>(counts.size());
+
+			for (var entry : counts.entrySet()) {
+				results.add(makeResult(entry.getKey(), entry.getValue()));
 			}
 
-			newResult.put("count", String.valueOf(count));
+			Collections.sort(results);
+			return results;
+		}
+
+		PriorityQueue<Result> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
 
-			double score = (double)count/fileWordCounts.get(location);
-			String scoreFormatted = String.format("%.8f", score);
-			newResult.put("score", scoreFormatted);
+		for (var entry : counts.entrySet()) {
+			Result result = makeResult(entry.getKey(), entry.getValue());
 
-			if (count > 0) {
-				results.add(newResult);
+			if (best.size() < limit) {
+				best.add(result);
+			} else if (result.compareTo(best.peek()) < 0) {
+				best.poll();
+				best.add(result);
 			}
 		}
 
+		ArrayList<Result> results = new ArrayList<>(best);
 		Collections.sort(results);
 		return results;
 	}
 
+	/**
+	 * Creates the result object for the number of matches found in a location.
+	 *
+	 * @param location location the matches were found in
+	 * @param count    number of matches found in location
+	 * @return result object for location
+	 */
+	private Result makeResult(String location, int count) {
+		double score = (double) count / getWordCount(location);
+		return new Result(location.replace("\\", "/"), count, score);
+	}
+
 	/**
 	 * Creates a list of results objects that contain locations words from searchQuery
 	 * were found in, number of occurrences, and a score generated for that result. This
 	 * method searches the invertedIndex already generated to generate data, looking for
-	 * partial word matches.
+	 * partial word matches. Since words are stored in sorted order, the words starting
+	 * with a search word are found by scanning forward from that search word until a
+	 * word no longer matches, rather than checking every word in the index.
 	 *
 	 * @param searchQuery list of strings that are being searched for
 	 * @return list of result objects, containing relevant result data
+	 * @see #getPartialResults(Query, int)
 	 */
 	public ArrayList<Result> getPartialResults(Query searchQuery) {
-		ArrayList<Result> results = new ArrayList<>();
-
-		for (String location : fileWordCounts.keySet()) {
-			Result newResult = new Result();
-
-			newResult.put("where", String.valueOf(location).replace("\\", "/"));
+		return getPartialResults(searchQuery, Integer.MAX_VALUE);
+	}
 
-			int count = 0;
-			for (String searchWord : searchQuery.get()) {
-				for (String word : this.get()) {
-					if (word.startsWith(searchWord) && this.contains(word, location)) {
-						count += this.get(word, location).size();
-					}
-				}
-			}
+	/**
+	 * Creates a sorted list of only the best results for searchQuery, looking
+	 * for partial word matches. Every matching location is still counted, but
+	 * at most limit results are kept while the rest are discarded, so no more
+	 * than limit results are ever sorted.
+	 *
+	 * @param searchQuery list of strings that are being searched for
+	 * @param limit       maximum number of results to return
+	 * @return list of at most limit result objects, in sorted order
+	 * @see #getPartialResults(Query)
+	 */
+	public ArrayList<Result> getPartialResults(Query searchQuery, int limit) {
+		HashMap<String, Integer> counts = new HashMap<>();
 
-			newResult.put("count", String.valueOf(count));
+		for (String searchWord : searchQuery.get()) {
+			addPartialCounts(searchWord, counts);
+		}
 
-			double score = (double)count/fileWordCounts.get(location);
-			String scoreFormatted = String.format("%.8f", score);
-			newResult.put("score", scoreFormatted);
+		return makeResults(counts, limit);
+	}
 
-			if (count > 0) {
-				results.add(newResult);
+	/**
+	 * Adds the number of positions every word starting with prefix was found at
+	 * in each of its locations to the running count kept for that location.
+	 *
+	 * @param prefix prefix of the words whose locations will be counted
+	 * @param counts running count of matches for each location
+	 * @see #addCounts(String, Map)
+	 */
+	protected void addPartialCounts(String prefix, Map<String, Integer> counts) {
+		for (String word : invertedIndex.tailMap(prefix).keySet()) {
+			if (!word.startsWith(prefix)) {
+				break;
 			}
+			addCounts(word, counts);
 		}
-
-		Collections.sort(results);
-		return results;
 	}
 
 	/**
@@ -244,7 +599,7 @@ public class InvertedIndex {
 	 */
 	public String toString() {
 		try {
-			return "Inverted Index: \n" + SimpleJsonWriter.asInvertedIndex(invertedIndex) + "\n\nFile Word Counts: \n" + SimpleJsonWriter.asObject(fileWordCounts);
+			return "Inverted Index: \n" + SimpleJsonWriter.asInvertedIndex(asMap()) + "\n\nFile Word Counts: \n" + SimpleJsonWriter.asObject(getWordCounts());
 		} catch (IOException e) {
 			System.out.println("Error printing inverted index and word count for locations.");
 		}
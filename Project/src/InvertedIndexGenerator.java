@@ -1,10 +1,4 @@
-import opennlp.tools.stemmer.Stemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
-
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 
@@ -23,12 +17,36 @@ import java.nio.file.Path;
  * @see TextParser
  */
 public class InvertedIndexGenerator {
+	/**
+	 * Tokenizer of each thread, reused for every file the thread adds so its
+	 * read buffers are only allocated once.
+	 */
+	private static final ThreadLocal<TextTokenizer> TOKENIZERS = ThreadLocal.withInitial(TextTokenizer::new);
+
+	/**
+	 * Cache of stems shared by every call of
+	 * {@link #addFile(Path, InvertedIndex)}, so files added one at a time reuse
+	 * the stems of earlier files instead of each creating a cache.
+	 */
+	private static final StemCache DEFAULT_CACHE = new StemCache();
+
 	/**
 	 * InvertedIndex object used as a storage location to write
 	 * invertedIndex and count to.
 	 */
 	private final InvertedIndex index;
 
+	/**
+	 * Cache of the stem of every word stemmed during a build.
+	 */
+	private final StemCache cache;
+
+	/**
+	 * Partition of the files added by a build, which holds every file unless
+	 * changed.
+	 */
+	private Partition partition;
+
 	/**
 	 * InvertedIndexGenerator constructor. Takes in an InvertedIndex
 	 * object, and performs any build operations onto it.
@@ -36,13 +54,50 @@ public class InvertedIndexGenerator {
 	 * @param index InvertedIndex object all build operations will affect
 	 */
 	public InvertedIndexGenerator(InvertedIndex index) {
+		this(index, new StemCache());
+	}
+
+	/**
+	 * InvertedIndexGenerator constructor. Takes in an InvertedIndex
+	 * object, and performs any build operations onto it, looking up stems in
+	 * the provided cache.
+	 *
+	 * @param index InvertedIndex object all build operations will affect
+	 * @param cache cache of stems, which may be shared with other generators
+	 */
+	public InvertedIndexGenerator(InvertedIndex index, StemCache cache) {
 		this.index = index;
+		this.cache = cache;
+		this.partition = Partition.ALL;
 	}
 
 	/**
-	 * The default stemmer algorithm used by this class.
+	 * Returns the cache of stems used by this generator.
+	 *
+	 * @return cache of stems
+	 */
+	public StemCache getStemCache() {
+		return cache;
+	}
+
+	/**
+	 * Returns the partition of the files added by a build.
+	 *
+	 * @return partition of the files added
+	 */
+	public Partition getPartition() {
+		return partition;
+	}
+
+	/**
+	 * Changes the partition of the files added by later builds. Files outside
+	 * the partition are skipped as soon as they are found, without being read.
+	 *
+	 * @param partition partition of the files to add
 	 */
-	public static final SnowballStemmer.ALGORITHM DEFAULT = SnowballStemmer.ALGORITHM.ENGLISH;
+	public void setPartition(Partition partition) {
+		this.partition = partition;
+	}
 
 	/**
 	 * This function iterates through every text file found in inputFile,
@@ -50,41 +105,44 @@ public class InvertedIndexGenerator {
 	 * along with file it was found in, and location within the file.
 	 * <p>
 	 * At the same time, word counts for each file are determined and
-	 * put into index.
+	 * put into index. Each file is indexed as soon as it is found, without
+	 * listing every file first. Only the files of the partition of this
+	 * generator are added.
 	 *
 	 * @param inputFile File path that is a inverted word index is being generated for
+	 * @return number of text files added to index
 	 * @throws IOException if a file was not able to be read
 	 */
-	public void build(Path inputFile) throws IOException {
-		for (Path file : TextFileFinder.list(inputFile)) {
-			addFile(file, this.index);
-		}
+	public int build(Path inputFile) throws IOException {
+		return TextFileFinder.forEach(inputFile, partition, file -> addFile(file, this.index, cache));
 	}
 
 	/**
-	 * Adds the data of a file to the invertedIndex
+	 * Adds the data of a file to the invertedIndex, looking up stems in a cache
+	 * shared by every call of this method.
 	 *
 	 * @param inputFile file whose data will be added to invertedIndex
 	 * @param index index object inputFile's data will be added to
 	 * @throws IOException if a file was not able to be read
 	 */
 	public static void addFile(Path inputFile, InvertedIndex index) throws IOException {
-		Stemmer stemmer = new SnowballStemmer(DEFAULT);
-		int position = 0;
-
-		try (
-				BufferedReader reader = Files.newBufferedReader(inputFile, StandardCharsets.UTF_8)
-		) {
-			String line;
-			String inputFileName = inputFile.toString();
-			while ((line = reader.readLine()) != null) {
-				String[] parsedWords = TextParser.parse(line);
+		addFile(inputFile, index, DEFAULT_CACHE);
+	}
 
-				for (String word : parsedWords) {
-					++position;
-					index.add(String.valueOf(stemmer.stem(word)), inputFileName, position);
-				}
-			}
-		}
+	/**
+	 * Adds the data of a file to the invertedIndex, looking up the stem of
+	 * every word in cache before stemming it with the calling thread's
+	 * stemmer. The file is read and split into words in pieces by the calling
+	 * thread's tokenizer, without creating a String for each line.
+	 *
+	 * @param inputFile file whose data will be added to invertedIndex
+	 * @param index index object inputFile's data will be added to
+	 * @param cache cache of stems to use
+	 * @throws IOException if a file was not able to be read
+	 * @see TextTokenizer#tokenize(Path, int, TextTokenizer.TokenConsumer)
+	 */
+	public static void addFile(Path inputFile, InvertedIndex index, StemCache cache) throws IOException {
+		String inputFileName = inputFile.toString();
+		TOKENIZERS.get().tokenize(inputFile, 0, (word, at) -> index.add(cache.stem(word), inputFileName, at));
 	}
-}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Multithreaded version of {@link InvertedIndexGenerator}. Every text file
+ * found is handed to a {@link WorkQueue}, where a worker stems it into its own
+ * private InvertedIndex. That partial index is then merged into the shared
+ * {@link ThreadSafeInvertedIndex} in a single step, so workers only contend
+ * for its write lock once per file instead of once per word. A
+ * {@link ShardedInvertedIndex} may be used instead, so workers merging words
+ * held by different shards do not contend at all.
+ *
+ * @see InvertedIndexGenerator
+ * @see WorkQueue
+ */
+public class MultithreadedInvertedIndexGenerator extends InvertedIndexGenerator {
+	/**
+	 * Thread-safe index every worker merges its partial index into.
+	 */
+	private final InvertedIndex index;
+
+	/**
+	 * Work queue used to process files in parallel.
+	 */
+	private final WorkQueue queue;
+
+	/**
+	 * First exception thrown by a worker during the current build, if any.
+	 */
+	private IOException failure;
+
+	/**
+	 * MultithreadedInvertedIndexGenerator constructor. Takes in a thread-safe
+	 * index, and the work queue whose workers will perform build operations
+	 * onto it.
+	 *
+	 * @param index thread-safe index all build operations will affect, such as
+	 *              a ThreadSafeInvertedIndex or ShardedInvertedIndex
+	 * @param queue work queue used to process files
+	 */
+	public MultithreadedInvertedIndexGenerator(InvertedIndex index, WorkQueue queue) {
+		this(index, queue, new StemCache());
+	}
+
+	/**
+	 * MultithreadedInvertedIndexGenerator constructor. Takes in a thread-safe
+	 * index, the work queue whose workers will perform build operations onto
+	 * it, and the cache of stems every worker shares.
+	 *
+	 * @param index thread-safe index all build operations will affect, such as
+	 *              a ThreadSafeInvertedIndex or ShardedInvertedIndex
+	 * @param queue work queue used to process files
+	 * @param cache cache of stems, which may be shared with other generators
+	 */
+	public MultithreadedInvertedIndexGenerator(InvertedIndex index, WorkQueue queue, StemCache cache) {
+		super(index, cache);
+		this.index = index;
+		this.queue = queue;
+	}
+
+	/**
+	 * Queues every text file found in inputFile to be stemmed by a worker as
+	 * soon as it is found, and waits until all of them have been merged into
+	 * the index. Every directory directly inside inputFile is walked by its own
+	 * worker, so files are found in parallel as well.
+	 *
+	 * @param inputFile File path that is a inverted word index is being generated for
+	 * @return number of text files added to index
+	 * @throws IOException if a file was not able to be read
+	 */
+	@Override
+	public int build(Path inputFile) throws IOException {
+		synchronized (this) {
+			failure = null;
+		}
+
+		int files = TextFileFinder.forEach(inputFile, queue, getPartition(), file -> queue.execute(new FileTask(file)));
+
+		synchronized (this) {
+			if (failure != null) {
+				throw failure;
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Task that builds a partial index for one file and merges it into the
+	 * shared index.
+	 */
+	private class FileTask implements Runnable {
+		/**
+		 * File this task will add to the index.
+		 */
+		private final Path file;
+
+		/**
+		 * Creates a task for the provided file.
+		 *
+		 * @param file file to add to the index
+		 */
+		public FileTask(Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public void run() {
+			InvertedIndex local = new InvertedIndex();
+
+			try {
+				addFile(file, local, getStemCache());
+			} catch (IOException e) {
+				synchronized (MultithreadedInvertedIndexGenerator.this) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+				return;
+			}
+
+			index.addAll(local);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Multithreaded version of {@link SearchResultsGenerator}. Every query is
+ * handed to a {@link WorkQueue}, where a worker searches the index for it.
+ * Queries are claimed before they are searched, so identical queries are
+ * never searched more than once even when they are processed concurrently.
+ *
+ * @see SearchResultsGenerator
+ * @see WorkQueue
+ */
+public class MultithreadedSearchResultsGenerator extends SearchResultsGenerator {
+	/**
+	 * Work queue used to search queries in parallel.
+	 */
+	private final WorkQueue queue;
+
+	/**
+	 * Queries that have already been claimed by a worker.
+	 */
+	private final TreeSet<Query> searched;
+
+	/**
+	 * MultithreadedSearchResultsGenerator constructor. Takes in the
+	 * InvertedIndex object all searches will be performed against, and the work
+	 * queue whose workers will perform them.
+	 *
+	 * @param index InvertedIndex object to search
+	 * @param queue work queue used to search queries
+	 */
+	public MultithreadedSearchResultsGenerator(InvertedIndex index, WorkQueue queue) {
+		this(index, queue, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * MultithreadedSearchResultsGenerator constructor. Takes in the
+	 * InvertedIndex object all searches will be performed against, the work
+	 * queue whose workers will perform them, and the maximum number of results
+	 * kept for each query.
+	 *
+	 * @param index InvertedIndex object to search
+	 * @param queue work queue used to search queries
+	 * @param limit maximum number of results kept for each query
+	 */
+	public MultithreadedSearchResultsGenerator(InvertedIndex index, WorkQueue queue, int limit) {
+		this(new ResultCache(index, 0), queue, limit);
+	}
+
+	/**
+	 * MultithreadedSearchResultsGenerator constructor. Takes in the cache of
+	 * results all searches will be looked up in before searching its
+	 * InvertedIndex object, the work queue whose workers will perform them, and
+	 * the maximum number of results kept for each query.
+	 *
+	 * @param cache cache of results of the InvertedIndex object to search
+	 * @param queue work queue used to search queries
+	 * @param limit maximum number of results kept for each query
+	 */
+	public MultithreadedSearchResultsGenerator(ResultCache cache, WorkQueue queue, int limit) {
+		super(cache, limit);
+		this.queue = queue;
+		this.searched = new TreeSet<>();
+	}
+
+	/**
+	 * Queues every query to be searched by a worker, and waits until all of
+	 * their results have been stored.
+	 *
+	 * @param searchQueries queries to search for
+	 * @param exact         true if queries should be exact matches, false for
+	 *                      partial matches
+	 */
+	@Override
+	public void search(Collection<Query> searchQueries, boolean exact) {
+		for (Query searchQuery : searchQueries) {
+			queue.execute(() -> search(searchQuery, exact));
+		}
+
+		queue.finish();
+	}
+
+	@Override
+	public void search(Query searchQuery, boolean exact) {
+		synchronized (this) {
+			if (!searched.add(searchQuery)) {
+				return;
+			}
+		}
+
+		addResults(searchQuery, getResults(searchQuery, exact));
+	}
+
+	@Override
+	protected synchronized void addResults(Query searchQuery, ArrayList<Result> results) {
+		super.addResults(searchQuery, results);
+	}
+
+	@Override
+	public synchronized void writeResults(Path path, boolean pretty) throws IOException {
+		super.writeResults(path, pretty);
+	}
+}
@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Measures how partial search latency grows with the size of the vocabulary.
+ * For each vocabulary size, a synthetic index is generated and the same
+ * prefix queries are searched both with the range scan of
+ * {@link InvertedIndex#getPartialResults(Query)} and with the loop it
+ * replaced, which checked every indexed word against every search word for
+ * every location. The counts found both ways are compared, and the average
+ * time per query of each is reported.
+ *
+ * @see InvertedIndex#getPartialResults(Query)
+ */
+public class PartialSearchBenchmark {
+	/**
+	 * Vocabulary sizes measured when none are given.
+	 */
+	private static final int[] VOCABULARIES = { 1_000, 10_000, 100_000, 1_000_000 };
+
+	/**
+	 * Number of locations in every synthetic index.
+	 */
+	private static final int LOCATIONS = 100;
+
+	/**
+	 * Number of queries searched each way.
+	 */
+	private static final int QUERIES = 20;
+
+	/**
+	 * Number of distinct words that can be spelled by {@link #word(int)}.
+	 */
+	private static final int WORDS = 26 * 26 * 26 * 26 * 26;
+
+	/**
+	 * Runs the benchmark. The optional arguments are the vocabulary sizes to
+	 * measure, 1000, 10000, 100000 and 1000000 by default.
+	 *
+	 * @param args vocabulary sizes
+	 */
+	public static void main(String[] args) {
+		int[] vocabularies = VOCABULARIES;
+		if (args.length > 0) {
+			vocabularies = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				vocabularies[i] = Math.min(Integer.parseInt(args[i]), WORDS);
+			}
+		}
+
+		for (int vocabulary : vocabularies) {
+			run(vocabulary);
+		}
+	}
+
+	/**
+	 * Generates an index of a vocabulary size, searches it both ways, and
+	 * reports the results.
+	 *
+	 * @param vocabulary number of distinct words in the index
+	 */
+	private static void run(int vocabulary) {
+		Random random = new Random(212);
+		InvertedIndex index = new InvertedIndex();
+		int[] positions = new int[LOCATIONS];
+
+		// spread the words evenly over every spelling, so a prefix matches about as many words at any size
+		for (int i = 0; i < vocabulary; i++) {
+			String word = word((int) ((long) i * WORDS / vocabulary));
+			for (int copies = 1 + random.nextInt(3); copies > 0; copies--) {
+				int location = random.nextInt(LOCATIONS);
+				index.add(word, location(location), ++positions[location]);
+			}
+		}
+
+		ArrayList<Query> queries = new ArrayList<>();
+		for (int i = 0; i < QUERIES; i++) {
+			TreeSet<String> prefixes = new TreeSet<>();
+			prefixes.add(word(random.nextInt(WORDS)).substring(0, 3));
+			Query query = new Query();
+			query.addAll(prefixes);
+			queries.add(query);
+		}
+
+		long scanNanos = 0;
+		long loopNanos = 0;
+		long matching = 0;
+		int mismatches = 0;
+
+		for (Query query : queries) {
+			long start = System.nanoTime();
+			ArrayList<Result> results = index.getPartialResults(query);
+			scanNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			HashMap<String, Integer> expected = loopCounts(index, query);
+			loopNanos += System.nanoTime() - start;
+
+			HashMap<String, Integer> found = new HashMap<>();
+			for (Result result : results) {
+				found.put(result.getWhere(), result.getCount());
+			}
+
+			matching += results.size();
+			if (!expected.equals(found)) {
+				mismatches++;
+			}
+		}
+
+		System.out.printf("%,d words: %d queries, %d locations matched, %d mismatches%n", vocabulary, queries.size(),
+				matching, mismatches);
+		System.out.printf("  every word of every location: %.3f ms/query, range scan: %.3f ms/query (%.0fx faster)%n",
+				loopNanos / 1e6 / queries.size(), scanNanos / 1e6 / queries.size(), (double) loopNanos / scanNanos);
+	}
+
+	/**
+	 * Counts the positions of the words starting with each search word in
+	 * every location the way partial searches did before the range scan, by
+	 * checking every word of the index against every search word for every
+	 * location. Kept only as the reference the range scan is measured against.
+	 *
+	 * @param index       index to search
+	 * @param searchQuery search words
+	 * @return number of matching positions of every location with any
+	 */
+	private static HashMap<String, Integer> loopCounts(InvertedIndex index, Query searchQuery) {
+		HashMap<String, Integer> counts = new HashMap<>();
+
+		for (String location : index.getLocations()) {
+			int count = 0;
+			for (String searchWord : searchQuery.get()) {
+				for (String word : index.get()) {
+					if (word.startsWith(searchWord) && index.contains(word, location)) {
+						count += index.get(word, location).size();
+					}
+				}
+			}
+
+			if (count > 0) {
+				counts.put(location, count);
+			}
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Returns the synthetic location of a number.
+	 *
+	 * @param number number of the location
+	 * @return location of number
+	 */
+	private static String location(int number) {
+		return String.format("synthetic/file%03d.txt", number);
+	}
+
+	/**
+	 * Returns the synthetic word of a number, spelled with the 5 letters of
+	 * the number in base 26 after a leading letter, so every word is distinct.
+	 *
+	 * @param number number of the word, less than {@link #WORDS}
+	 * @return word of number
+	 */
+	private static String word(int number) {
+		char[] word = { 'w', 'a', 'a', 'a', 'a', 'a' };
+		for (int i = word.length - 1; i > 0; i--) {
+			word[i] += number % 26;
+			number /= 26;
+		}
+		return new String(word);
+	}
+}
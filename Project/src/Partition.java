@@ -0,0 +1,89 @@
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+/**
+ * One of several partitions of the text files found in a path, so several
+ * processes given the same path can each index a different share of the
+ * files. Every file belongs to exactly one partition, chosen from a hash of
+ * its path, so files outside a partition can be skipped before they are read.
+ */
+public class Partition implements Predicate<Path> {
+	/**
+	 * The only partition when files are not partitioned, holding every file.
+	 */
+	public static final Partition ALL = new Partition(0, 1);
+
+	/**
+	 * Number of this partition, starting at 0.
+	 */
+	private final int number;
+
+	/**
+	 * Number of partitions.
+	 */
+	private final int count;
+
+	/**
+	 * Creates one of several partitions.
+	 *
+	 * @param number number of the partition, starting at 0
+	 * @param count  number of partitions
+	 * @throws IllegalArgumentException if count is not positive or number is
+	 *                                  not between 0 and count - 1
+	 */
+	public Partition(int number, int count) {
+		if (count <= 0 || number < 0 || number >= count) {
+			throw new IllegalArgumentException("Invalid partition: " + number + "/" + count);
+		}
+		this.number = number;
+		this.count = count;
+	}
+
+	/**
+	 * Parses a partition written as its number and the number of partitions
+	 * separated by a slash, such as "0/3".
+	 *
+	 * @param partition the partition to parse
+	 * @return the partition
+	 * @throws IllegalArgumentException if partition is not a valid partition
+	 */
+	public static Partition parse(String partition) {
+		String[] parts = partition.split("/");
+
+		try {
+			return new Partition(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid partition: " + partition, e);
+		}
+	}
+
+	/**
+	 * Checks if a location of an index belongs to this partition.
+	 *
+	 * @param location the location, which is the path of a file
+	 * @return true if location belongs to this partition
+	 */
+	public boolean contains(String location) {
+		return count == 1 || Math.floorMod(location.hashCode(), count) == number;
+	}
+
+	/**
+	 * Checks if a file belongs to this partition, without reading it.
+	 *
+	 * @param file the file
+	 * @return true if file belongs to this partition
+	 */
+	@Override
+	public boolean test(Path file) {
+		return contains(file.toString());
+	}
+
+	/**
+	 * Returns the number of the partition and the number of partitions
+	 * separated by a slash.
+	 */
+	@Override
+	public String toString() {
+		return number + "/" + count;
+	}
+}
@@ -0,0 +1,301 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Searches every partition of a document-partitioned index, each served by a
+ * {@link PartitionServer}, and merges the results found by each one into a
+ * single sorted list. Since every location belongs to exactly one partition,
+ * the merged results are exactly the results of searching one index holding
+ * every file.
+ * <p>
+ * Each query is sent to every partition before any response is read, so the
+ * partitions search it at the same time. Each thread searching keeps its own
+ * connection to every partition, opened the first time it searches.
+ *
+ * @see PartitionServer
+ */
+public class PartitionCoordinator implements Closeable {
+	/**
+	 * Addresses of every partition.
+	 */
+	private final List<InetSocketAddress> partitions;
+
+	/**
+	 * Connections of each thread to every partition.
+	 */
+	private final ThreadLocal<Connection[]> connections;
+
+	/**
+	 * Every connection opened, so they can all be closed.
+	 */
+	private final ArrayList<Connection> opened;
+
+	/**
+	 * Initializes a coordinator for the partitions at the provided addresses.
+	 * No connection is opened until the first search.
+	 *
+	 * @param partitions addresses of every partition
+	 */
+	public PartitionCoordinator(List<InetSocketAddress> partitions) {
+		this.partitions = List.copyOf(partitions);
+		this.connections = new ThreadLocal<>();
+		this.opened = new ArrayList<>();
+	}
+
+	/**
+	 * Parses a comma-separated list of partition addresses, each written as
+	 * {@code host:port}, or just {@code port} for the local host.
+	 *
+	 * @param addresses comma-separated list of addresses
+	 * @return list of addresses
+	 * @throws IllegalArgumentException if an address is not valid
+	 */
+	public static List<InetSocketAddress> parseAddresses(String addresses) {
+		ArrayList<InetSocketAddress> parsed = new ArrayList<>();
+
+		for (String address : addresses.split(",")) {
+			parsed.add(parseAddress(address.strip(), "localhost"));
+		}
+
+		return parsed;
+	}
+
+	/**
+	 * Parses an address written as {@code host:port}, or just {@code port} for
+	 * the provided default host.
+	 *
+	 * @param address     address to parse
+	 * @param defaultHost host used if address does not have one
+	 * @return parsed address, which is not resolved
+	 * @throws IllegalArgumentException if the address is not valid
+	 */
+	public static InetSocketAddress parseAddress(String address, String defaultHost) {
+		int colon = address.lastIndexOf(':');
+		String host = colon < 0 ? defaultHost : address.substring(0, colon);
+
+		try {
+			return InetSocketAddress.createUnresolved(host, Integer.parseInt(address.substring(colon + 1)));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid partition address: " + address, e);
+		}
+	}
+
+	/**
+	 * Returns the addresses of every partition.
+	 *
+	 * @return unmodifiable list of addresses
+	 */
+	public List<InetSocketAddress> getPartitions() {
+		return partitions;
+	}
+
+	/**
+	 * Searches every partition for a query, and merges their results.
+	 *
+	 * @param searchQuery query to search for
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 * @return sorted list of the results found by every partition
+	 * @throws IOException if a partition was not able to be searched
+	 * @see #search(Query, boolean, int)
+	 */
+	public ArrayList<Result> search(Query searchQuery, boolean exact) throws IOException {
+		return search(searchQuery, exact, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Searches every partition for a query, and merges their best results. Each
+	 * partition only sends back its own best results, up to limit, since no
+	 * other result of that partition can be among the best results overall.
+	 *
+	 * @param searchQuery query to search for
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 * @param limit       maximum number of results to return
+	 * @return sorted list of at most limit of the results found by every
+	 *         partition
+	 * @throws IOException if a partition was not able to be searched
+	 */
+	public ArrayList<Result> search(Query searchQuery, boolean exact, int limit) throws IOException {
+		Connection[] connections = getConnections();
+
+		StringBuilder request = new StringBuilder(exact ? "exact" : "partial");
+		if (limit != Integer.MAX_VALUE) {
+			request.append(':').append(limit);
+		}
+		for (String word : searchQuery.get()) {
+			request.append('\t').append(word);
+		}
+
+		ArrayList<Result> results = new ArrayList<>();
+		try {
+			for (Connection connection : connections) {
+				connection.send(request);
+			}
+
+			for (Connection connection : connections) {
+				connection.receive(results);
+			}
+		} catch (IOException e) {
+			// responses left unread would be taken for the answers to the next search
+			closeConnections(connections);
+			throw e;
+		}
+
+		// each partition's results are already sorted, so this only merges runs
+		Collections.sort(results);
+
+		if (results.size() > limit) {
+			results.subList(Math.max(limit, 0), results.size()).clear();
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the connections of the calling thread to every partition,
+	 * opening them if needed.
+	 *
+	 * @return connection to every partition
+	 * @throws IOException if a partition is not able to be connected to
+	 */
+	private Connection[] getConnections() throws IOException {
+		Connection[] threadConnections = connections.get();
+
+		if (threadConnections == null) {
+			threadConnections = new Connection[partitions.size()];
+
+			for (int i = 0; i < threadConnections.length; i++) {
+				InetSocketAddress address = partitions.get(i);
+				Connection connection = new Connection(new Socket(address.getHostString(), address.getPort()));
+
+				synchronized (opened) {
+					opened.add(connection);
+				}
+				threadConnections[i] = connection;
+			}
+
+			connections.set(threadConnections);
+		}
+
+		return threadConnections;
+	}
+
+	/**
+	 * Closes the connections of the calling thread, so the next search of the
+	 * thread opens new ones. Errors closing them are ignored, since they are
+	 * only closed after another error.
+	 *
+	 * @param threadConnections connections of the calling thread
+	 */
+	private void closeConnections(Connection[] threadConnections) {
+		connections.remove();
+
+		for (Connection connection : threadConnections) {
+			synchronized (opened) {
+				opened.remove(connection);
+			}
+
+			try {
+				connection.socket.close();
+			} catch (IOException e) {
+				// the connection is no longer used either way
+			}
+		}
+	}
+
+	/**
+	 * Closes every connection opened by any thread.
+	 *
+	 * @throws IOException if a connection is not able to be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (opened) {
+			for (Connection connection : opened) {
+				connection.socket.close();
+			}
+			opened.clear();
+		}
+	}
+
+	/**
+	 * A connection to one partition.
+	 */
+	private static class Connection {
+		/**
+		 * Socket connected to the partition.
+		 */
+		private final Socket socket;
+
+		/**
+		 * Reader of the responses of the partition.
+		 */
+		private final BufferedReader reader;
+
+		/**
+		 * Writer of the requests to the partition.
+		 */
+		private final BufferedWriter writer;
+
+		/**
+		 * Creates a connection over a connected socket.
+		 *
+		 * @param socket socket connected to the partition
+		 * @throws IOException if the socket is not able to be read or written
+		 */
+		public Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * Sends a request.
+		 *
+		 * @param request request line to send
+		 * @throws IOException if the request is not able to be sent
+		 */
+		public void send(CharSequence request) throws IOException {
+			writer.append(request).append('\n');
+			writer.flush();
+		}
+
+		/**
+		 * Reads the response to the last request sent.
+		 *
+		 * @param results list to add the results found to
+		 * @throws IOException if the response is not able to be read or is not
+		 *                     valid
+		 */
+		public void receive(List<Result> results) throws IOException {
+			String line;
+			while ((line = reader.readLine()) != null && !line.isEmpty()) {
+				String[] fields = line.split("\t", 3);
+
+				if (fields.length != 3) {
+					throw new IOException("Invalid response from partition " + socket.getRemoteSocketAddress() + ": " + line);
+				}
+
+				try {
+					results.add(new Result(fields[2], Integer.parseInt(fields[0]), Double.parseDouble(fields[1])));
+				} catch (NumberFormatException e) {
+					throw new IOException("Invalid response from partition " + socket.getRemoteSocketAddress() + ": " + line, e);
+				}
+			}
+
+			if (line == null) {
+				throw new IOException("Partition " + socket.getRemoteSocketAddress() + " closed the connection.");
+			}
+		}
+	}
+}
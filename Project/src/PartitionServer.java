@@ -0,0 +1,167 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Serves searches of one partition of a document-partitioned index over a
+ * simple line-based TCP protocol, so a {@link PartitionCoordinator} can search
+ * every partition and merge their results. Each partition holds a complete
+ * InvertedIndex for its own subset of files, so the results it finds for a
+ * query, including their scores, are exactly the results the whole index would
+ * find in those files.
+ * <p>
+ * Every request is one line: {@code exact} or {@code partial}, optionally
+ * followed by a colon and the maximum number of results to send back, then
+ * the words of the query, separated by tabs. The response is one line for
+ * each result, in sorted order, holding its count, unrounded score and location
+ * separated by tabs, followed by an empty line. A connection may send any
+ * number of requests, and is served by its own thread until it is closed, or
+ * until it sends a request of any other mode, which closes it unanswered.
+ * Locations containing line breaks are not supported.
+ *
+ * @see PartitionCoordinator
+ */
+public class PartitionServer implements Closeable {
+	/**
+	 * Cache of results in front of the index searched for every request. The
+	 * index must be safe to search from several threads at once, which every
+	 * index is once it is no longer modified.
+	 */
+	private final ResultCache cache;
+
+	/**
+	 * Socket accepting connections.
+	 */
+	private final ServerSocket server;
+
+	/**
+	 * Starts accepting connections on the provided address, searching index for
+	 * every request.
+	 *
+	 * @param index   index to search
+	 * @param address address to listen on
+	 * @throws IOException if the address is not able to be listened on
+	 */
+	public PartitionServer(InvertedIndex index, InetSocketAddress address) throws IOException {
+		this(new ResultCache(index, 0), address);
+	}
+
+	/**
+	 * Starts accepting connections on the provided address, looking up every
+	 * request in cache before searching its index.
+	 *
+	 * @param cache   cache of results of the index to search
+	 * @param address address to listen on
+	 * @throws IOException if the address is not able to be listened on
+	 */
+	public PartitionServer(ResultCache cache, InetSocketAddress address) throws IOException {
+		this.cache = cache;
+		this.server = new ServerSocket();
+		this.server.bind(address.isUnresolved() ? new InetSocketAddress(address.getHostString(), address.getPort()) : address);
+
+		Thread acceptor = new Thread(this::accept, "partition-server");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Returns the port connections are accepted on.
+	 *
+	 * @return port of the server
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the server is closed, serving each one on its
+	 * own thread.
+	 */
+	private void accept() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				Thread connection = new Thread(() -> serve(socket), "partition-connection");
+				connection.setDaemon(true);
+				connection.start();
+			} catch (IOException e) {
+				if (!server.isClosed()) {
+					System.err.println("Warning: Partition server was unable to accept a connection.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Answers every request sent on a connection until it is closed.
+	 *
+	 * @param socket connection to serve
+	 */
+	private void serve(Socket socket) {
+		try (
+				socket;
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))
+		) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", -1);
+				Query query = new Query();
+				query.addAll(new TreeSet<>(Arrays.asList(fields).subList(1, fields.length)));
+
+				String mode = fields[0];
+				int limit = Integer.MAX_VALUE;
+				int colon = mode.indexOf(':');
+
+				if (colon >= 0) {
+					try {
+						limit = Integer.parseInt(mode.substring(colon + 1));
+					} catch (NumberFormatException e) {
+						System.err.println("Warning: Partition server ignored an invalid limit: " + mode);
+					}
+					mode = mode.substring(0, colon);
+				}
+
+				if (!"exact".equals(mode) && !"partial".equals(mode)) {
+					System.err.println("Warning: Partition server closed a connection that sent an invalid mode: " + mode);
+					return;
+				}
+
+				ArrayList<Result> results = cache.getResults(query, "exact".equals(mode), limit);
+
+				for (Result result : results) {
+					writer.write(Integer.toString(result.getCount()));
+					writer.write('\t');
+					writer.write(Double.toString(result.getScore()));
+					writer.write('\t');
+					writer.write(result.getWhere());
+					writer.write('\n');
+				}
+				writer.write('\n');
+				writer.flush();
+			}
+		} catch (IOException e) {
+			System.err.println("Warning: Partition server connection closed unexpectedly.");
+		}
+	}
+
+	/**
+	 * Stops accepting connections.
+	 *
+	 * @throws IOException if the socket is not able to be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		server.close();
+	}
+}
@@ -0,0 +1,790 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Pipelined version of {@link InvertedIndexGenerator}. Building is split into
+ * stages that each run on their own threads of a {@link WorkQueue}, so disk
+ * reads, stemming and index insertion do not wait on each other:
+ * <ol>
+ * <li>a walker streams every text file found by
+ * {@link TextFileFinder#find(Path)},</li>
+ * <li>readers read each file in chunks of {@link #CHUNK_SIZE} bytes,</li>
+ * <li>workers split the chunks of each file into words as they are read and
+ * stem them into a partial InvertedIndex, and</li>
+ * <li>the thread calling {@link #build(Path)} merges every partial index into
+ * the index, so the index itself does not need to be thread-safe.</li>
+ * </ol>
+ * Stages are connected by bounded queues. A stage that gets ahead of the next
+ * one blocks once the queue between them is full, which limits how many files
+ * are held in memory at once. A reader also blocks once {@link #CHUNKS} chunks
+ * of its file are waiting to be split, so files of any size are read with a
+ * bounded amount of memory. The number of items and bytes each stage handled,
+ * how long it was busy, and how deep each queue got are kept for tuning the
+ * number of readers and workers to the storage being read.
+ *
+ * @see InvertedIndexGenerator
+ * @see MultithreadedInvertedIndexGenerator
+ */
+public class PipelinedInvertedIndexGenerator extends InvertedIndexGenerator {
+	/**
+	 * The default number of items each queue can hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * The default number of reader threads.
+	 */
+	public static final int DEFAULT_READERS = 1;
+
+	/**
+	 * The number of bytes read from a file at a time.
+	 */
+	public static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * The number of chunks of a file that can wait to be split into words.
+	 */
+	public static final int CHUNKS = 4;
+
+	/**
+	 * InvertedIndex object the partial indexes are merged into.
+	 */
+	private final InvertedIndex index;
+
+	/**
+	 * Number of reader threads.
+	 */
+	private final int readers;
+
+	/**
+	 * Number of worker threads splitting and stemming files.
+	 */
+	private final int workers;
+
+	/**
+	 * Number of items each queue can hold.
+	 */
+	private final int capacity;
+
+	/**
+	 * Queue of files found by the walker, waiting to be read.
+	 */
+	private volatile Pipe<Path> paths;
+
+	/**
+	 * Queue of files being read, waiting to be split and stemmed.
+	 */
+	private volatile Pipe<Document> documents;
+
+	/**
+	 * Queue of partial indexes, waiting to be merged into the index.
+	 */
+	private volatile Pipe<Document> partials;
+
+	/**
+	 * Statistics of every stage of the current or last build, in order.
+	 */
+	private volatile Stage[] stages;
+
+	/**
+	 * First exception or error thrown by a stage during the current build, if
+	 * any.
+	 */
+	private Throwable failure;
+
+	/**
+	 * PipelinedInvertedIndexGenerator constructor. Takes in an InvertedIndex
+	 * object, the number of threads of each stage, and the number of items each
+	 * queue between stages can hold.
+	 *
+	 * @param index    InvertedIndex object all build operations will affect
+	 * @param readers  number of threads reading files
+	 * @param workers  number of threads splitting and stemming files
+	 * @param capacity number of items each queue can hold
+	 * @param cache    cache of stems, which may be shared with other generators
+	 */
+	public PipelinedInvertedIndexGenerator(InvertedIndex index, int readers, int workers, int capacity, StemCache cache) {
+		super(index, cache);
+		this.index = index;
+		this.readers = Math.max(readers, 1);
+		this.workers = Math.max(workers, 1);
+		this.capacity = Math.max(capacity, 1);
+		this.paths = new Pipe<>("paths", this.capacity, 1);
+		this.documents = new Pipe<>("documents", this.capacity, this.readers);
+		this.partials = new Pipe<>("partial indexes", this.capacity, this.workers);
+		this.stages = new Stage[0];
+	}
+
+	/**
+	 * Streams every text file found in inputFile through the stages of the
+	 * pipeline, merging the partial index of each file into the index, and
+	 * waits until every stage has finished. Each stage runs on its own thread
+	 * of a work queue that is shut down once the build is over.
+	 *
+	 * @param inputFile File path that is a inverted word index is being generated for
+	 * @return number of text files added to index
+	 * @throws IOException if a file was not able to be read, or a stage failed
+	 *                     for any other reason
+	 */
+	@Override
+	public int build(Path inputFile) throws IOException {
+		synchronized (this) {
+			failure = null;
+		}
+
+		Stage walk = new Stage("walk");
+		Stage read = new Stage("read");
+		Stage tokenize = new Stage("tokenize");
+		Stage merge = new Stage("merge");
+		stages = new Stage[] { walk, read, tokenize, merge };
+
+		paths = new Pipe<>("paths", capacity, 1);
+		documents = new Pipe<>("documents", capacity, readers);
+		partials = new Pipe<>("partial indexes", capacity, workers);
+
+		WorkQueue queue = new WorkQueue(readers + workers + 1);
+		boolean interrupted = false;
+		int files = 0;
+
+		try {
+			queue.execute(() -> walk(inputFile, walk));
+			for (int i = 0; i < readers; i++) {
+				queue.execute(() -> read(read));
+			}
+			for (int i = 0; i < workers; i++) {
+				queue.execute(() -> tokenize(tokenize));
+			}
+
+			while (true) {
+				try {
+					Document document = partials.take();
+					if (document == null) {
+						break;
+					}
+					if (failed()) {
+						continue;
+					}
+
+					long start = System.nanoTime();
+					index.addAll(document.partial);
+					merge.add(document.size, start);
+					++files;
+				} catch (InterruptedException e) {
+					interrupted = true;
+					fail(new IOException("Interrupted while building the index from " + inputFile, e));
+				} catch (RuntimeException | Error e) {
+					fail(e);
+				}
+			}
+
+			queue.finish();
+		} finally {
+			queue.shutdown();
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this) {
+			if (failure instanceof IOException) {
+				throw (IOException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			if (failure != null) {
+				throw new IOException("Unable to build the index from " + inputFile, failure);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Walker stage. Queues every text file of the partition found in inputFile
+	 * to be read.
+	 *
+	 * @param inputFile path to find text files in
+	 * @param stage     statistics of this stage
+	 */
+	private void walk(Path inputFile, Stage stage) {
+		try (Stream<Path> found = TextFileFinder.find(inputFile, getPartition())) {
+			Iterator<Path> iterator = found.iterator();
+			while (!failed()) {
+				long start = System.nanoTime();
+				if (!iterator.hasNext()) {
+					break;
+				}
+				Path file = iterator.next();
+				stage.add(0, start);
+				paths.put(file);
+			}
+		} catch (UncheckedIOException e) {
+			fail(e.getCause());
+		} catch (IOException | RuntimeException | Error e) {
+			fail(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			paths.close();
+		}
+	}
+
+	/**
+	 * Reader stage. Reads every file queued by the walker in chunks, passing
+	 * each file on to be split into words as soon as it is opened, and each
+	 * chunk as soon as it is read.
+	 *
+	 * @param stage statistics of this stage
+	 */
+	private void read(Stage stage) {
+		try {
+			Path file;
+			while ((file = paths.take()) != null) {
+				if (failed()) {
+					continue;
+				}
+
+				long start = System.nanoTime();
+				long waited = 0;
+				long size = 0;
+
+				try (FileChannel channel = FileChannel.open(file)) {
+					Chunks chunks = new Chunks();
+					try {
+						long queued = System.nanoTime();
+						documents.put(new Document(file, chunks));
+						waited += System.nanoTime() - queued;
+
+						ByteBuffer buffer;
+						do {
+							buffer = ByteBuffer.allocate((int) Math.max(Math.min(channel.size() - size, CHUNK_SIZE), 1));
+							while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+								continue;
+							}
+							if (buffer.position() > 0) {
+								size += buffer.position();
+								queued = System.nanoTime();
+								chunks.put(buffer.array(), buffer.position());
+								waited += System.nanoTime() - queued;
+							}
+						} while (!buffer.hasRemaining() && !failed());
+					} finally {
+						chunks.close();
+					}
+				} catch (IOException | RuntimeException | Error e) {
+					fail(e);
+					continue;
+				}
+
+				stage.add(size, start, waited);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			documents.close();
+		}
+	}
+
+	/**
+	 * Worker stage. Splits and stems every file into a partial index of its
+	 * own while its chunks are being read, so the merger only has to add it to
+	 * the index.
+	 *
+	 * @param stage statistics of this stage
+	 */
+	private void tokenize(Stage stage) {
+		TextTokenizer tokenizer = new TextTokenizer();
+		StemCache cache = getStemCache();
+
+		try {
+			Document document;
+			while ((document = documents.take()) != null) {
+				try {
+					if (failed()) {
+						continue;
+					}
+
+					long start = System.nanoTime();
+					InvertedIndex local = new InvertedIndex();
+					String location = document.file.toString();
+
+					tokenizer.tokenize(document.chunks, 0, (word, at) -> local.add(cache.stem(word), location, at));
+
+					stage.add(document.chunks.size, start, document.chunks.waited);
+					partials.put(new Document(document.file, local, document.chunks.size));
+				} catch (IOException | RuntimeException | Error e) {
+					fail(e);
+				} finally {
+					document.chunks.discard();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			partials.close();
+		}
+	}
+
+	/**
+	 * Records the first exception or error thrown by any stage. Stages keep
+	 * draining their queues after a failure without doing any more work, so no
+	 * stage is left blocked.
+	 *
+	 * @param e exception or error thrown
+	 */
+	private synchronized void fail(Throwable e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * Checks if any stage has failed during the current build.
+	 *
+	 * @return true if a stage has failed
+	 */
+	private synchronized boolean failed() {
+		return failure != null;
+	}
+
+	/**
+	 * Returns the number of items currently waiting in each queue, in the
+	 * order of the stages. This may be called while a build is running.
+	 *
+	 * @return map from the name of each queue to its current depth
+	 */
+	public Map<String, Integer> getQueueDepths() {
+		LinkedHashMap<String, Integer> depths = new LinkedHashMap<>();
+		for (Pipe<?> pipe : new Pipe<?>[] { paths, documents, partials }) {
+			depths.put(pipe.name, pipe.depth());
+		}
+		return depths;
+	}
+
+	/**
+	 * Returns the total number of threads used by the stages of a build,
+	 * including the merging thread.
+	 *
+	 * @return number of threads
+	 */
+	public int getThreads() {
+		return readers + workers + 2;
+	}
+
+	/**
+	 * Returns the throughput of every stage and the depth of every queue of the
+	 * current or last build, one per line.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("Pipeline: %d reader(s), %d worker(s), queues of %d", readers, workers, capacity));
+		for (Stage stage : stages) {
+			report.append(System.lineSeparator()).append(stage);
+		}
+		for (Pipe<?> pipe : new Pipe<?>[] { paths, documents, partials }) {
+			report.append(System.lineSeparator()).append(pipe);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * A file passed between stages, holding either the chunks of its content
+	 * or its partial index.
+	 */
+	private static class Document {
+		/**
+		 * The file.
+		 */
+		private final Path file;
+
+		/**
+		 * Chunks of the content of the file, or null once it has been split
+		 * into words.
+		 */
+		private final Chunks chunks;
+
+		/**
+		 * Partial index of the file, or null until it has been split into words.
+		 */
+		private final InvertedIndex partial;
+
+		/**
+		 * Size of the file in bytes, or 0 until it has been split into words.
+		 */
+		private final long size;
+
+		/**
+		 * Creates a document whose content is still being read.
+		 *
+		 * @param file   the file
+		 * @param chunks chunks of the content of the file, as they are read
+		 */
+		public Document(Path file, Chunks chunks) {
+			this.file = file;
+			this.chunks = chunks;
+			this.partial = null;
+			this.size = 0;
+		}
+
+		/**
+		 * Creates a document holding the partial index of a file.
+		 *
+		 * @param file    the file
+		 * @param partial partial index of the file
+		 * @param size    size of the file in bytes
+		 */
+		public Document(Path file, InvertedIndex partial, long size) {
+			this.file = file;
+			this.chunks = null;
+			this.partial = partial;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Content of one file, passed from the reader to the worker one chunk at a
+	 * time while the file is still being read. The worker reads it as a
+	 * channel, which ends once the reader has closed it and every chunk has been
+	 * read.
+	 */
+	private static class Chunks implements ReadableByteChannel {
+		/**
+		 * Marks the end of the chunks.
+		 */
+		private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+		/**
+		 * Chunks waiting to be read by the worker.
+		 */
+		private final ArrayBlockingQueue<ByteBuffer> queue;
+
+		/**
+		 * Chunk being read by the worker, or null before the first one.
+		 */
+		private ByteBuffer chunk;
+
+		/**
+		 * Number of bytes read by the worker.
+		 */
+		private long size;
+
+		/**
+		 * Nanoseconds the worker spent waiting for the next chunk.
+		 */
+		private long waited;
+
+		/**
+		 * Creates an empty channel.
+		 */
+		public Chunks() {
+			this.queue = new ArrayBlockingQueue<>(CHUNKS);
+			this.chunk = null;
+			this.size = 0;
+			this.waited = 0;
+		}
+
+		/**
+		 * Passes a chunk to the worker, waiting for room if {@link #CHUNKS}
+		 * chunks are already waiting. Only called by the reader.
+		 *
+		 * @param bytes  the bytes of the chunk, which must not be changed after
+		 * @param length number of bytes of the chunk
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public void put(byte[] bytes, int length) throws InterruptedException {
+			queue.put(ByteBuffer.wrap(bytes, 0, length));
+		}
+
+		/**
+		 * Reads the bytes of the current chunk into dst, waiting for the next
+		 * chunk if every byte of the current one has been read. Only called by
+		 * the worker.
+		 *
+		 * @return number of bytes read, or -1 once every chunk has been read
+		 *         and the reader has closed the channel
+		 * @throws InterruptedIOException if interrupted while waiting
+		 */
+		@Override
+		public int read(ByteBuffer dst) throws InterruptedIOException {
+			if (chunk == null || (chunk != END && !chunk.hasRemaining())) {
+				long start = System.nanoTime();
+				try {
+					chunk = queue.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the next chunk");
+				} finally {
+					waited += System.nanoTime() - start;
+				}
+			}
+
+			if (chunk == END) {
+				return -1;
+			}
+
+			int length = Math.min(dst.remaining(), chunk.remaining());
+			dst.put(dst.position(), chunk, chunk.position(), length);
+			dst.position(dst.position() + length);
+			chunk.position(chunk.position() + length);
+			size += length;
+			return length;
+		}
+
+		/**
+		 * Skips every chunk not read yet, up to the end of the channel, so the
+		 * reader is never left waiting for room. Only called by the worker.
+		 *
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public void discard() throws InterruptedException {
+			while (chunk != END) {
+				chunk = queue.take();
+			}
+		}
+
+		/**
+		 * Always true, since the end of the channel is only reached once the
+		 * reader closes it.
+		 */
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		/**
+		 * Marks the end of the chunks, once the reader is done with the file.
+		 * Only called by the reader.
+		 */
+		@Override
+		public void close() {
+			try {
+				queue.put(END);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Statistics of one stage, updated by every thread of the stage.
+	 */
+	private static class Stage {
+		/**
+		 * Name of the stage.
+		 */
+		private final String name;
+
+		/**
+		 * Number of files handled.
+		 */
+		private final LongAdder items;
+
+		/**
+		 * Number of bytes handled.
+		 */
+		private final LongAdder bytes;
+
+		/**
+		 * Nanoseconds spent working, summed over every thread of the stage.
+		 */
+		private final LongAdder busy;
+
+		/**
+		 * Creates the statistics of a stage.
+		 *
+		 * @param name name of the stage
+		 */
+		public Stage(String name) {
+			this.name = name;
+			this.items = new LongAdder();
+			this.bytes = new LongAdder();
+			this.busy = new LongAdder();
+		}
+
+		/**
+		 * Records one file handled.
+		 *
+		 * @param size  size of the file in bytes
+		 * @param start value of {@link System#nanoTime()} when work on the file
+		 *              started
+		 */
+		public void add(long size, long start) {
+			add(size, start, 0);
+		}
+
+		/**
+		 * Records one file handled, not counting the time spent waiting on
+		 * another stage as busy.
+		 *
+		 * @param size   size of the file in bytes
+		 * @param start  value of {@link System#nanoTime()} when work on the file
+		 *               started
+		 * @param waited nanoseconds spent waiting on another stage since start
+		 */
+		public void add(long size, long start, long waited) {
+			busy.add(System.nanoTime() - start - waited);
+			items.increment();
+			bytes.add(size);
+		}
+
+		/**
+		 * Returns the number of files and megabytes handled per busy second.
+		 */
+		@Override
+		public String toString() {
+			double seconds = busy.sum() / 1e9;
+			long files = items.sum();
+			double megabytes = bytes.sum() / (1024.0 * 1024.0);
+			return String.format("%s: %d files, %.2f MB in %f busy seconds (%.2f files/second, %.2f MB/s)", name,
+					files, megabytes, seconds, seconds == 0 ? 0 : files / seconds, seconds == 0 ? 0 : megabytes / seconds);
+		}
+	}
+
+	/**
+	 * Bounded queue between two stages. Once every producer has closed the
+	 * queue, every consumer takes null after the remaining items.
+	 *
+	 * @param <T> type of the items passed
+	 */
+	private static class Pipe<T> {
+		/**
+		 * Marks the end of the items, once every producer is done.
+		 */
+		private static final Object END = new Object();
+
+		/**
+		 * Name of the queue.
+		 */
+		private final String name;
+
+		/**
+		 * Items waiting to be taken.
+		 */
+		private final ArrayBlockingQueue<Object> queue;
+
+		/**
+		 * Number of producers that have not closed the queue yet.
+		 */
+		private final AtomicInteger producers;
+
+		/**
+		 * Number of items put.
+		 */
+		private final LongAdder puts;
+
+		/**
+		 * Sum of the depth of the queue after every put.
+		 */
+		private final LongAdder depths;
+
+		/**
+		 * Largest depth of the queue.
+		 */
+		private final AtomicInteger maxDepth;
+
+		/**
+		 * Nanoseconds producers spent waiting for the queue to have room.
+		 */
+		private final LongAdder blocked;
+
+		/**
+		 * Creates an empty queue.
+		 *
+		 * @param name      name of the queue
+		 * @param capacity  number of items the queue can hold
+		 * @param producers number of producers that will close the queue
+		 */
+		public Pipe(String name, int capacity, int producers) {
+			this.name = name;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+			this.producers = new AtomicInteger(producers);
+			this.puts = new LongAdder();
+			this.depths = new LongAdder();
+			this.maxDepth = new AtomicInteger();
+			this.blocked = new LongAdder();
+		}
+
+		/**
+		 * Puts an item in the queue, waiting for room if it is full.
+		 *
+		 * @param item item to put
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public void put(T item) throws InterruptedException {
+			long start = System.nanoTime();
+			queue.put(item);
+			blocked.add(System.nanoTime() - start);
+
+			int depth = queue.size();
+			puts.increment();
+			depths.add(depth);
+			maxDepth.accumulateAndGet(depth, Math::max);
+		}
+
+		/**
+		 * Takes the next item from the queue, waiting for one if it is empty.
+		 *
+		 * @return the next item, or null if every producer has closed the queue
+		 *         and no items are left
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@SuppressWarnings("unchecked")
+		public T take() throws InterruptedException {
+			Object item = queue.take();
+
+			if (item == END) {
+				queue.put(END);
+				return null;
+			}
+			return (T) item;
+		}
+
+		/**
+		 * Closes the queue for one producer. Once every producer has closed it,
+		 * consumers take null after the remaining items.
+		 */
+		public void close() {
+			if (producers.decrementAndGet() == 0) {
+				try {
+					queue.put(END);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		/**
+		 * Returns the number of items waiting in the queue.
+		 *
+		 * @return depth of the queue
+		 */
+		public int depth() {
+			int depth = queue.size();
+			return queue.contains(END) ? depth - 1 : depth;
+		}
+
+		/**
+		 * Returns how deep the queue got and how long producers waited for it.
+		 */
+		@Override
+		public String toString() {
+			long count = puts.sum();
+			return String.format("%s queue: %d now, %d max, %.2f average depth, %f seconds blocked", name, depth(),
+					maxDepth.get(), count == 0 ? 0 : (double) depths.sum() / count, blocked.sum() / 1e9);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact storage structure for the postings of a single word. Instead of a
+ * TreeMap of boxed positions, document ids are kept in a growable primitive
+ * {@code int} array sorted by id, and the sorted positions of every document
+ * are stored back to back in a second array. The positions for the document
+ * at index {@code i} start at {@code offsets[i]} and end before
+ * {@code offsets[i + 1]}.
+ *
+ * @see CompactInvertedIndex
+ */
+public class PostingList {
+	/**
+	 * Initial capacity of the arrays backing a new posting list.
+	 */
+	private static final int INITIAL_CAPACITY = 2;
+
+	/**
+	 * Sorted document ids this word was found in.
+	 */
+	private int[] documents;
+
+	/**
+	 * Start of each document's positions within positions, followed by the end
+	 * of the last document's positions.
+	 */
+	private int[] offsets;
+
+	/**
+	 * Sorted positions of every document, stored back to back.
+	 */
+	private int[] positions;
+
+	/**
+	 * Number of documents stored.
+	 */
+	private int documentCount;
+
+	/**
+	 * Class constructor that initializes an empty posting list
+	 */
+	public PostingList() {
+		this.documents = new int[INITIAL_CAPACITY];
+		this.offsets = new int[INITIAL_CAPACITY + 1];
+		this.positions = new int[INITIAL_CAPACITY];
+		this.documentCount = 0;
+	}
+
+	/**
+	 * Adds a position for a document. Positions are usually added in increasing
+	 * order for the last document, which only requires appending to the arrays;
+	 * any other position is inserted in sorted order.
+	 *
+	 * @param document id of the document the position was found in
+	 * @param position position within the document
+	 * @return true if the position was added, false if it was already present
+	 */
+	public boolean add(int document, int position) {
+		int index;
+
+		if (documentCount > 0 && documents[documentCount - 1] == document) {
+			index = documentCount - 1;
+		} else {
+			index = Arrays.binarySearch(documents, 0, documentCount, document);
+
+			if (index < 0) {
+				index = -(index + 1);
+				insertDocument(index, document);
+			}
+		}
+
+		int start = offsets[index];
+		int end = offsets[index + 1];
+
+		if (end > start && positions[end - 1] < position) {
+			insertPosition(index, end, position);
+			return true;
+		}
+
+		int found = Arrays.binarySearch(positions, start, end, position);
+
+		if (found >= 0) {
+			return false;
+		}
+
+		insertPosition(index, -(found + 1), position);
+		return true;
+	}
+
+	/**
+	 * Inserts an empty document into the list of documents.
+	 *
+	 * @param index    index the document will be stored at
+	 * @param document id of the document
+	 */
+	private void insertDocument(int index, int document) {
+		if (documentCount == documents.length) {
+			documents = Arrays.copyOf(documents, Math.max(INITIAL_CAPACITY, documents.length * 2));
+			offsets = Arrays.copyOf(offsets, documents.length + 1);
+		}
+
+		System.arraycopy(documents, index, documents, index + 1, documentCount - index);
+		System.arraycopy(offsets, index, offsets, index + 1, documentCount - index + 1);
+		documents[index] = document;
+		documentCount++;
+	}
+
+	/**
+	 * Inserts a position for a document, shifting any positions after it.
+	 *
+	 * @param index    index of the document the position belongs to
+	 * @param at       index within positions to store the position at
+	 * @param position position to store
+	 */
+	private void insertPosition(int index, int at, int position) {
+		int total = offsets[documentCount];
+
+		if (total == positions.length) {
+			positions = Arrays.copyOf(positions, Math.max(INITIAL_CAPACITY, positions.length * 2));
+		}
+
+		System.arraycopy(positions, at, positions, at + 1, total - at);
+		positions[at] = position;
+
+		for (int i = index + 1; i <= documentCount; i++) {
+			offsets[i]++;
+		}
+	}
+
+	/**
+	 * Removes a document along with all of its positions.
+	 *
+	 * @param document id of the document to remove
+	 * @return number of positions removed, or 0 if the document was not stored
+	 */
+	public int remove(int document) {
+		int index = indexOf(document);
+
+		if (index < 0) {
+			return 0;
+		}
+
+		int start = offsets[index];
+		int end = offsets[index + 1];
+		int removed = end - start;
+
+		System.arraycopy(positions, end, positions, start, offsets[documentCount] - end);
+		System.arraycopy(documents, index + 1, documents, index, documentCount - index - 1);
+
+		for (int i = index + 1; i <= documentCount; i++) {
+			offsets[i - 1] = offsets[i] - removed;
+		}
+
+		documentCount--;
+		return removed;
+	}
+
+	/**
+	 * Shrinks the backing arrays to the number of documents and positions
+	 * stored.
+	 */
+	public void trimToSize() {
+		documents = Arrays.copyOf(documents, documentCount);
+		offsets = Arrays.copyOf(offsets, documentCount + 1);
+		positions = Arrays.copyOf(positions, offsets[documentCount]);
+	}
+
+	/**
+	 * Returns the number of documents stored.
+	 *
+	 * @return number of documents
+	 */
+	public int size() {
+		return documentCount;
+	}
+
+	/**
+	 * Returns the document id stored at index.
+	 *
+	 * @param index index of the document, between 0 and {@link #size()}
+	 * @return document id
+	 */
+	public int getDocument(int index) {
+		return documents[index];
+	}
+
+	/**
+	 * Returns the number of positions stored for the document at index.
+	 *
+	 * @param index index of the document, between 0 and {@link #size()}
+	 * @return number of positions
+	 */
+	public int getCount(int index) {
+		return offsets[index + 1] - offsets[index];
+	}
+
+	/**
+	 * Finds the index of a document.
+	 *
+	 * @param document id of the document to look for
+	 * @return index of the document, or a negative number if it is not stored
+	 */
+	public int indexOf(int document) {
+		int index = Arrays.binarySearch(documents, 0, documentCount, document);
+		return index < 0 ? -1 : index;
+	}
+
+	/**
+	 * Checks if a position is stored for the document at index.
+	 *
+	 * @param index    index of the document, between 0 and {@link #size()}
+	 * @param position position to look for
+	 * @return true if the position is found, false if it is not found
+	 */
+	public boolean contains(int index, int position) {
+		return Arrays.binarySearch(positions, offsets[index], offsets[index + 1], position) >= 0;
+	}
+
+	/**
+	 * Returns the positions stored for the document at index. The positions are
+	 * only boxed as they are read.
+	 *
+	 * @param index index of the document, between 0 and {@link #size()}
+	 * @return unmodifiable list of positions, backed by this posting list
+	 */
+	public List<Integer> getPositions(int index) {
+		int start = offsets[index];
+		int end = offsets[index + 1];
+
+		return new AbstractList<>() {
+			@Override
+			public Integer get(int i) {
+				if (i < 0 || i >= end - start) {
+					throw new IndexOutOfBoundsException(i);
+				}
+				return positions[start + i];
+			}
+
+			@Override
+			public int size() {
+				return end - start;
+			}
+		};
+	}
+}
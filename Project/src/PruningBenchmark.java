@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Compares searches limited to their best results, which skip the locations
+ * that can not make it into those results, with unlimited searches of the
+ * same {@link FrozenInvertedIndex}. A synthetic corpus is generated with word
+ * frequencies following Zipf's law and file lengths varying widely, and long
+ * queries mixing common and rare words, as well as queries of prefixes of some
+ * of those words, are searched both ways. The results of every limited search
+ * are checked against the first results of the unlimited search, and the
+ * number of locations scored and postings skipped are reported with how long
+ * each took.
+ *
+ * @see FrozenInvertedIndex#getExactResults(Query, int)
+ * @see FrozenInvertedIndex#getPartialResults(Query, int)
+ */
+public class PruningBenchmark {
+	/**
+	 * Number of distinct words in the synthetic corpus.
+	 */
+	private static final int VOCABULARY = 50_000;
+
+	/**
+	 * Number of queries searched each way.
+	 */
+	private static final int QUERIES = 200;
+
+	/**
+	 * Runs the benchmark. The optional arguments are the number of files to
+	 * generate (20000 by default), the number of words in each query (16 by
+	 * default), and the maximum number of results of the limited searches
+	 * ({@link SearchResultsGenerator#DEFAULT_LIMIT} by default).
+	 *
+	 * @param args number of files, words per query and limit
+	 */
+	public static void main(String[] args) {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		int length = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int limit = args.length > 2 ? Integer.parseInt(args[2]) : SearchResultsGenerator.DEFAULT_LIMIT;
+		Random random = new Random(212);
+
+		double[] cumulative = new double[VOCABULARY];
+		double total = 0;
+		for (int rank = 0; rank < VOCABULARY; rank++) {
+			total += 1.0 / (rank + 1);
+			cumulative[rank] = total;
+		}
+
+		long start = System.nanoTime();
+		CompactInvertedIndex compact = new CompactInvertedIndex();
+		for (int file = 0; file < files; file++) {
+			String location = String.format("synthetic/file%06d.txt", file);
+			int words = 20 + (int) (Math.pow(random.nextDouble(), 3) * 2000);
+
+			for (int position = 1; position <= words; position++) {
+				compact.add(word(zipf(cumulative, total, random)), location, position);
+			}
+		}
+		FrozenInvertedIndex index = compact.freeze();
+		compact = null;
+		System.out.printf("Built %d files, %d words in %.1f seconds%n", files, index.get().size(),
+				(System.nanoTime() - start) / 1e9);
+
+		ArrayList<Query> queries = new ArrayList<>();
+		for (int i = 0; i < QUERIES; i++) {
+			TreeSet<String> words = new TreeSet<>();
+			while (words.size() < length) {
+				words.add(word(random.nextInt(i % 2 == 0 ? 100 : 5_000)));
+			}
+			Query query = new Query();
+			query.addAll(words);
+			queries.add(query);
+		}
+
+		run(index, queries, limit, true);
+
+		// each prefix matches 26 words, so only a couple fit in a pruned search
+		ArrayList<Query> prefixes = new ArrayList<>();
+		for (Query query : queries) {
+			TreeSet<String> words = new TreeSet<>();
+			for (String word : query.get().subList(0, Math.min(2, length))) {
+				words.add(word.substring(0, word.length() - 1));
+			}
+			Query prefix = new Query();
+			prefix.addAll(words);
+			prefixes.add(prefix);
+		}
+
+		run(index, prefixes, limit, false);
+	}
+
+	/**
+	 * Searches every query with and without a limit, checks that the limited
+	 * results are the first unlimited results, and reports the totals.
+	 *
+	 * @param index   index to search
+	 * @param queries queries to search for
+	 * @param limit   maximum number of results of the limited searches
+	 * @param exact   true for exact searches, false for partial searches
+	 */
+	private static void run(FrozenInvertedIndex index, ArrayList<Query> queries, int limit, boolean exact) {
+		for (int round = 0; round < 3; round++) {
+			long matching = 0;
+			long mismatches = 0;
+			long exhaustiveNanos = 0;
+			long prunedNanos = 0;
+			long evaluated = index.getEvaluated();
+			long skipped = index.getSkipped();
+
+			for (Query query : queries) {
+				long start = System.nanoTime();
+				ArrayList<Result> all = exact ? index.getExactResults(query) : index.getPartialResults(query);
+				exhaustiveNanos += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				ArrayList<Result> best = exact ? index.getExactResults(query, limit) : index.getPartialResults(query, limit);
+				prunedNanos += System.nanoTime() - start;
+
+				matching += all.size();
+				if (!all.subList(0, Math.min(limit, all.size())).toString().equals(best.toString())) {
+					mismatches++;
+				}
+			}
+
+			evaluated = index.getEvaluated() - evaluated;
+			skipped = index.getSkipped() - skipped;
+
+			System.out.printf("%s top %d, round %d: %d queries, %d mismatches%n", exact ? "Exact" : "Partial", limit,
+					round + 1, queries.size(), mismatches);
+			System.out.printf("  locations matching: %d, scored: %d (%.1f%%), skipped: %d; postings skipped: %d%n",
+					matching, evaluated, 100.0 * evaluated / matching, matching - evaluated, skipped);
+			System.out.printf("  unlimited: %.1f ms, limited: %.1f ms%n", exhaustiveNanos / 1e6, prunedNanos / 1e6);
+		}
+	}
+
+	/**
+	 * Picks the rank of a word at random, following Zipf's law.
+	 *
+	 * @param cumulative running total of the weight of every rank
+	 * @param total      total weight of every rank
+	 * @param random     source of randomness
+	 * @return rank of the word picked, starting at 0 for the most common word
+	 */
+	private static int zipf(double[] cumulative, double total, Random random) {
+		int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+		return rank < 0 ? Math.min(-(rank + 1), cumulative.length - 1) : rank;
+	}
+
+	/**
+	 * Returns the synthetic word of a rank, spelled with the 4 letters of its
+	 * rank in base 26 after a leading letter, so every word is distinct and
+	 * dropping the last letter gives a prefix of 26 words of similar rank.
+	 *
+	 * @param rank rank of the word
+	 * @return word of rank
+	 */
+	private static String word(int rank) {
+		char[] word = {'w', 'a', 'a', 'a', 'a'};
+		for (int i = word.length - 1; i > 0; i--) {
+			word[i] += rank % 26;
+			rank /= 26;
+		}
+		return new String(word);
+	}
+}
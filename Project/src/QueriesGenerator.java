@@ -6,7 +6,6 @@ import java.nio.file.Path;
 import java.util.*;
 
 import opennlp.tools.stemmer.Stemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
 
 /**
  * Utility Class used to traverse a file, stem words
@@ -14,8 +13,11 @@ import opennlp.tools.stemmer.snowball.SnowballStemmer;
  * as a query object.
  */
 public class QueriesGenerator {
-	/** The default stemmer algorithm used by this class. */
-	public static final SnowballStemmer.ALGORITHM DEFAULT = SnowballStemmer.ALGORITHM.ENGLISH;
+	/**
+	 * Number of lines of a query file parsed by each task when the queries are
+	 * parsed with a work queue.
+	 */
+	public static final int CHUNK_SIZE = 1000;
 
 	/**
 	 * Returns a set of unique (no duplicates) cleaned and stemmed words parsed
@@ -32,7 +34,28 @@ public class QueriesGenerator {
 		String[] parsedLine = TextParser.parse(line);
 		TreeSet<String> stemmedLines = new TreeSet<>();
 		for (String word : parsedLine) {
-			stemmedLines.add((String) stemmer.stem(word));
+			stemmedLines.add(stemmer.stem(word).toString());
+		}
+		return stemmedLines;
+	}
+
+	/**
+	 * Returns a set of unique (no duplicates) cleaned and stemmed words parsed
+	 * from the provided line, looking up the stem of every word in cache before
+	 * stemming it.
+	 *
+	 * @param line  the line of words to clean, split, and stem
+	 * @param cache the cache of stems to use
+	 * @return a sorted set of unique cleaned and stemmed words
+	 *
+	 * @see StemCache#stem(CharSequence)
+	 * @see TextParser#parse(String)
+	 */
+	public static TreeSet<String> uniqueStems(String line, StemCache cache) {
+		String[] parsedLine = TextParser.parse(line);
+		TreeSet<String> stemmedLines = new TreeSet<>();
+		for (String word : parsedLine) {
+			stemmedLines.add(cache.stem(word));
 		}
 		return stemmedLines;
 	}
@@ -49,34 +72,133 @@ public class QueriesGenerator {
 	 * @see TextParser#parse(String)
 	 */
 	public static ArrayList<Query> uniqueQueryStems(Path inputFile) throws IOException {
-		Stemmer stemmer = new SnowballStemmer(DEFAULT);
-		ArrayList<Query> stemmedLines = new ArrayList<>();
+		return uniqueQueryStems(inputFile, new StemCache());
+	}
+
+	/**
+	 * Reads a file line by line, parses each line into cleaned and stemmed words,
+	 * and then adds those words to a set, looking up the stem of every word in
+	 * cache before stemming it. After doing this, method adds the query of each
+	 * stemmed set of words to a hash set, so duplicate queries are only kept
+	 * once, and returns the unique queries sorted.
+	 *
+	 * @param inputFile the input file to parse
+	 * @param cache     the cache of stems to use, which may be shared with the
+	 *                  build of the index
+	 * @return a sorted list of unique query objects
+	 * @throws IOException if unable to read or parse file
+	 *
+	 * @see TextParser#parse(String)
+	 */
+	public static ArrayList<Query> uniqueQueryStems(Path inputFile, StemCache cache) throws IOException {
+		HashSet<Query> queries = new HashSet<>();
+
+		try (
+				BufferedReader reader = Files.newBufferedReader(inputFile, StandardCharsets.UTF_8)
+		) {
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				addQuery(line, cache, queries);
+			}
+		}
+
+		return sorted(queries);
+	}
+
+	/**
+	 * Reads a file line by line like {@link #uniqueQueryStems(Path, StemCache)},
+	 * but splits the lines into chunks of {@link #CHUNK_SIZE} lines, each parsed
+	 * and stemmed by a worker of the work queue while the next chunk is read.
+	 * Each worker dedupes the queries of its chunk on its own before adding
+	 * them to the queries found so far.
+	 *
+	 * @param inputFile the input file to parse
+	 * @param cache     the cache of stems to use, which may be shared with the
+	 *                  build of the index
+	 * @param queue     the work queue used to parse and stem chunks of lines
+	 * @return a sorted list of unique query objects
+	 * @throws IOException if unable to read or parse file
+	 *
+	 * @see TextParser#parse(String)
+	 */
+	public static ArrayList<Query> uniqueQueryStems(Path inputFile, StemCache cache, WorkQueue queue) throws IOException {
+		HashSet<Query> queries = new HashSet<>();
 
 		try (
 				BufferedReader reader = Files.newBufferedReader(inputFile, StandardCharsets.UTF_8)
 		) {
+			ArrayList<String> chunk = new ArrayList<>(CHUNK_SIZE);
 			String line;
 
 			while ((line = reader.readLine()) != null) {
-				TreeSet<String> stemmedTreeSet = uniqueStems(line, stemmer);
-
-				if (stemmedTreeSet.size() > 0) {
-					Query currSearchLine = new Query();
-					currSearchLine.addAll(stemmedTreeSet);
-
-					boolean contains = false;
-					for (Query queryElem : stemmedLines) {
-						if (queryElem == currSearchLine) {
-							contains = true;
-							break;
-						}
-					}
-					if (!contains) {
-						stemmedLines.add(currSearchLine);
-					}
+				chunk.add(line);
+
+				if (chunk.size() == CHUNK_SIZE) {
+					execute(chunk, cache, queue, queries);
+					chunk = new ArrayList<>(CHUNK_SIZE);
 				}
 			}
+
+			if (!chunk.isEmpty()) {
+				execute(chunk, cache, queue, queries);
+			}
+		} finally {
+			queue.finish();
 		}
+
+		return sorted(queries);
+	}
+
+	/**
+	 * Queues a chunk of lines to be parsed and stemmed into queries by a
+	 * worker, which adds the unique queries of the chunk to queries once it is
+	 * done.
+	 *
+	 * @param chunk   the lines to parse, which must not be modified afterwards
+	 * @param cache   the cache of stems to use
+	 * @param queue   the work queue to parse the lines with
+	 * @param queries the queries found so far, synchronized on itself
+	 */
+	private static void execute(ArrayList<String> chunk, StemCache cache, WorkQueue queue, HashSet<Query> queries) {
+		queue.execute(() -> {
+			HashSet<Query> local = new HashSet<>();
+			for (String line : chunk) {
+				addQuery(line, cache, local);
+			}
+
+			synchronized (queries) {
+				queries.addAll(local);
+			}
+		});
+	}
+
+	/**
+	 * Parses a line into cleaned and stemmed words, and adds the query of those
+	 * words to queries if it has any words and is not already present.
+	 *
+	 * @param line    the line of words to clean, split, and stem
+	 * @param cache   the cache of stems to use
+	 * @param queries the queries to add the query of the line to
+	 */
+	private static void addQuery(String line, StemCache cache, HashSet<Query> queries) {
+		TreeSet<String> stemmedTreeSet = uniqueStems(line, cache);
+
+		if (stemmedTreeSet.size() > 0) {
+			Query currSearchLine = new Query();
+			currSearchLine.addAll(stemmedTreeSet);
+			queries.add(currSearchLine);
+		}
+	}
+
+	/**
+	 * Returns the queries sorted by their words.
+	 *
+	 * @param queries the queries to sort
+	 * @return a sorted list of the queries
+	 */
+	private static ArrayList<Query> sorted(HashSet<Query> queries) {
+		ArrayList<Query> stemmedLines = new ArrayList<>(queries);
 		Collections.sort(stemmedLines);
 		return stemmedLines;
 	}
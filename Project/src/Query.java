@@ -3,7 +3,9 @@ import java.util.TreeSet;
 
 /**
  * A data structure class that stores a list of strings that will later
- * be used to conduct searches
+ * be used to conduct searches. The words joined by spaces are kept as the
+ * canonical key of the query, which is computed once when words are added and
+ * then used to compare, hash and print the query.
  */
 public class Query implements Comparable<Query> {
 
@@ -12,11 +14,18 @@ public class Query implements Comparable<Query> {
 	 */
 	private final ArrayList<String> searchWords;
 
+	/**
+	 * The words of the query joined by spaces, or an empty string if it has no
+	 * words
+	 */
+	private String key;
+
 	/**
 	 * Constructor for query object
 	 */
 	public Query() {
 		this.searchWords = new ArrayList<>();
+		this.key = "";
 	}
 
 	/**
@@ -30,12 +39,39 @@ public class Query implements Comparable<Query> {
 	 */
 	@Override
 	public int compareTo(Query o) {
-		int max = Math.min(this.searchWords.size(), o.searchWords.size());
+		return this.key.compareToIgnoreCase(o.key);
+	}
 
-		String query1 = this.toString();
-		String query2 = o.toString();
+	/**
+	 * Checks whether another query holds exactly the same words in the same
+	 * order. Since the words of a query are stemmed and sorted, two queries are
+	 * equal whenever they would be searched the same way.
+	 *
+	 * @param o object to be compared to
+	 * @return true if o is a query holding the same words, false otherwise
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
 
-		return query1.compareToIgnoreCase(query2);
+		if (!(o instanceof Query)) {
+			return false;
+		}
+
+		return key.equals(((Query) o).key);
+	}
+
+	/**
+	 * Returns a hash code of the words of this query, consistent with
+	 * {@link #equals(Object)}.
+	 *
+	 * @return hash code of the query
+	 */
+	@Override
+	public int hashCode() {
+		return key.hashCode();
 	}
 
 	/**
@@ -54,10 +90,12 @@ public class Query implements Comparable<Query> {
 	 */
 	public void addAll(TreeSet<String> stemmedTreeSet) {
 		searchWords.addAll(stemmedTreeSet);
+		key = String.join(" ", searchWords);
 	}
 
 	/**
-	 * Get method to return this.searchWords
+	 * Get method to return this.searchWords. The list must not be modified,
+	 * since the key of the query would no longer match its words.
 	 *
 	 * @return ArrayList of strings in query object
 	 */
@@ -70,14 +108,6 @@ public class Query implements Comparable<Query> {
 	 * @return list of strings as one string
 	 */
 	public String toString() {
-		if (this.searchWords.size() > 0) {
-			StringBuilder queryWords = new StringBuilder(this.searchWords.get(0));
-
-			for (int i = 1; i < this.searchWords.size(); i++) {
-				queryWords.append(" ").append(this.searchWords.get(i));
-			}
-			return queryWords.toString();
-		}
-		return null;
+		return this.searchWords.isEmpty() ? null : key;
 	}
 }
\ No newline at end of file
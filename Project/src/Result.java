@@ -1,74 +1,169 @@
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.util.Locale;
 
 /**
- * A storage data structure class that stores a search result
+ * A storage data structure class that stores a search result: the location
+ * it was found in, the number of matches found there, and its score.
+ * <p>
+ * Count and score are stored as primitives, so results can be compared
+ * without parsing anything. Scores are written rounded to 8 decimal places,
+ * and results are ordered by that rounded score, so two results whose scores
+ * only differ past the 8th decimal place are ordered by count and location,
+ * exactly as they appear in the results file. The score is only formatted
+ * when it is written.
  */
 public class Result implements Comparable<Result> {
+	/**
+	 * Number of units of the rounded score in 1.
+	 */
+	private static final long SCALE = 100_000_000;
+
+	/**
+	 * Location the result was found in, with forward slashes as separators.
+	 */
+	private final String where;
+
+	/**
+	 * Number of matches found in the location.
+	 */
+	private final int count;
+
+	/**
+	 * Score of the result, which is the number of matches divided by the word
+	 * count of the location.
+	 */
+	private final double score;
 
 	/**
-	 * HashMap structure used to store details of a search result including location,
-	 * score, and count
+	 * Score rounded to 8 decimal places, in units of 0.00000001.
 	 */
-	private final HashMap<String, String> result;
+	private final long rounded;
 
 	/**
 	 * Constructor for result object
+	 *
+	 * @param where location the result was found in
+	 * @param count number of matches found in the location
+	 * @param score score of the result
 	 */
-	public Result() {
-		this.result = new HashMap<>();
+	public Result(String where, int count, double score) {
+		this.where = where;
+		this.count = count;
+		this.score = score;
+		this.rounded = round(score);
 	}
 
 	/**
-	 * Overridden compareTo method. Score has the most priority, then count, then where,
-	 * which is based alphabetically.
+	 * Rounds a score to 8 decimal places the same way {@code "%.8f"} does.
+	 * Rounding the scaled score is only ambiguous when it is very close to
+	 * halfway between two units, and only then is the score formatted to find
+	 * out which way it is rounded.
 	 *
-	 * @param o result object to be compared to
-	 * @return 1 if greater, 0 if equal, -1 if less than
+	 * @param score score to round
+	 * @return score rounded to 8 decimal places, in units of 0.00000001
 	 */
-	@Override
-	public int compareTo(Result o) {
-		if (Double.parseDouble(this.result.get("score")) > Double.parseDouble(o.result.get("score"))) {
-			return -1;
-		} else if (Double.parseDouble(this.result.get("score")) < Double.parseDouble(o.result.get("score"))) {
-			return 1;
-		} else {
-			if (Integer.parseInt(this.result.get("count")) > Integer.parseInt(o.result.get("count"))) {
-				return -1;
-			} else if (Integer.parseInt(this.result.get("count")) < Integer.parseInt(o.result.get("count"))) {
-				return 1;
-			} else {
-				return this.result.get("where").compareToIgnoreCase(o.result.get("where"));
-			}
+	private static long round(double score) {
+		double scaled = score * SCALE;
+		double fraction = scaled - Math.floor(scaled);
+
+		if (Math.abs(fraction - 0.5) > 1e-6) {
+			return Math.round(scaled);
+		}
+
+		return new BigDecimal(String.format(Locale.ROOT, "%.8f", score)).unscaledValue().longValue();
+	}
+
+	/**
+	 * Returns the location the result was found in.
+	 *
+	 * @return location, with forward slashes as separators
+	 */
+	public String getWhere() {
+		return where;
+	}
+
+	/**
+	 * Returns the number of matches found in the location.
+	 *
+	 * @return number of matches
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the score of the result, without rounding.
+	 *
+	 * @return score of the result
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * Returns the score rounded to 8 decimal places, as it is written to the
+	 * results file.
+	 *
+	 * @return formatted score
+	 */
+	public String getFormattedScore() {
+		StringBuilder formatted = new StringBuilder(16);
+		formatted.append(rounded / SCALE).append('.');
+
+		String fraction = Long.toString(rounded % SCALE);
+		for (int i = fraction.length(); i < 8; i++) {
+			formatted.append('0');
 		}
+
+		return formatted.append(fraction).toString();
 	}
 
 	/**
-	 * Get method to return value of key in this.result
+	 * Returns true if a result whose score is at most bound could come before
+	 * this result. Since results are ordered by their rounded score, a result
+	 * can only be ruled out if bound rounds strictly below the score of this
+	 * result; a result rounding to the same score could still come first by
+	 * its count or location. Bound is raised very slightly first, so a bound
+	 * added up from several smaller scores is never lower than the score it
+	 * bounds because of floating point error.
 	 *
-	 * @param key for value to be returned
-	 * @return value associated with key
+	 * @param bound highest possible score of the other result
+	 * @return true if a result scoring at most bound may come before this one
 	 */
-	public String get(String key) {
-		return this.result.get(key);
+	public boolean mayBeOutrankedBy(double bound) {
+		return round(bound * (1 + 1e-9)) >= this.rounded;
 	}
 
 	/**
-	 * Method to put a key value pair into this.result
+	 * Overridden compareTo method. Score has the most priority, then count, then where,
+	 * which is based alphabetically.
 	 *
-	 * @param key key to put into this.result
-	 * @param value mapped value to put into this.result
+	 * @param o result object to be compared to
+	 * @return negative if this result comes first, positive if o comes first,
+	 *         0 if equal
 	 */
-	public void put(String key, String value) {
-		this.result.put(key, value);
+	@Override
+	public int compareTo(Result o) {
+		int compare = Long.compare(o.rounded, this.rounded);
+
+		if (compare == 0) {
+			compare = Integer.compare(o.count, this.count);
+		}
+
+		if (compare == 0) {
+			compare = this.where.compareToIgnoreCase(o.where);
+		}
+
+		return compare;
 	}
 
 	/**
-	 * Prints a string form of hash map to stdout.
+	 * Returns a string form of the result.
 	 *
 	 * @return string version of data structure
 	 */
+	@Override
 	public String toString() {
-		return result.toString();
+		return "{where=" + where + ", count=" + count + ", score=" + getFormattedScore() + "}";
 	}
 }
-
@@ -0,0 +1,353 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of the results of searching an
+ * {@link InvertedIndex}, so a query that is searched again does not have to be
+ * counted and sorted again. Results are cached by the stemmed, sorted words of
+ * their query together with whether the search was exact or partial and the
+ * number of results it was limited to. The cache is split into segments by the
+ * hash of each query, each with its own lock, and each segment evicts its least
+ * recently used results once it holds its share of the capacity. The number of hits, misses, evictions
+ * and invalidations is counted for reporting.
+ * <p>
+ * Every result cached was found while the index had been modified a certain
+ * number of times. As soon as the index is modified again, every result cached
+ * is discarded, since any of them may be out of date.
+ * <p>
+ * A cache with a capacity of 0 stores nothing, and every search is counted as
+ * a miss. The lists of results returned are shared by every caller, and must
+ * not be modified.
+ *
+ * @see InvertedIndex#getModifications()
+ */
+public class ResultCache {
+	/**
+	 * The default number of searches a cache can hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 12;
+
+	/**
+	 * Number of segments a cache is split into.
+	 */
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * Index searched for results not found in the cache.
+	 */
+	private final InvertedIndex index;
+
+	/**
+	 * Segments of the cache, mapping searches to their results in least
+	 * recently used order, or an empty array if the cache stores nothing.
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * Number of modifications of the index every result cached was found at.
+	 */
+	private long modifications;
+
+	/**
+	 * Number of searches found in the cache.
+	 */
+	private final LongAdder hits;
+
+	/**
+	 * Number of searches not found in the cache.
+	 */
+	private final LongAdder misses;
+
+	/**
+	 * Number of results discarded because their segment was full.
+	 */
+	private final LongAdder evictions;
+
+	/**
+	 * Number of times every result was discarded because the index was
+	 * modified.
+	 */
+	private final LongAdder invalidations;
+
+	/**
+	 * Initializes a cache of the results of searching index, which holds up to
+	 * the default number of searches.
+	 *
+	 * @param index the index searched for results not found in the cache
+	 */
+	public ResultCache(InvertedIndex index) {
+		this(index, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initializes a cache of the results of searching index, which holds up to
+	 * capacity searches.
+	 *
+	 * @param index    the index searched for results not found in the cache
+	 * @param capacity the number of searches the cache can hold, or 0 to store
+	 *                 nothing
+	 */
+	public ResultCache(InvertedIndex index, int capacity) {
+		this.index = index;
+		this.segments = new Segment[Math.max(0, Math.min(capacity, SEGMENTS))];
+		for (int i = 0; i < segments.length; i++) {
+			// the first segments hold one more search each, so together they hold exactly capacity
+			segments[i] = new Segment(capacity / segments.length + (i < capacity % segments.length ? 1 : 0));
+		}
+
+		this.modifications = index.getModifications();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.invalidations = new LongAdder();
+	}
+
+	/**
+	 * Returns the best results of searching the index for a query, from the
+	 * cache if the same search has been made since the index was last
+	 * modified, otherwise by searching the index.
+	 *
+	 * @param searchQuery query to search for, which must not be modified
+	 *                    afterwards
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 * @param limit       maximum number of results to return
+	 * @return sorted list of at most limit results, which must not be modified
+	 * @see InvertedIndex#getExactResults(Query, int)
+	 * @see InvertedIndex#getPartialResults(Query, int)
+	 */
+	public ArrayList<Result> getResults(Query searchQuery, boolean exact, int limit) {
+		if (segments.length == 0) {
+			misses.increment();
+			return search(searchQuery, exact, limit);
+		}
+
+		long current = validate();
+		Key key = new Key(searchQuery, exact, limit);
+		int hash = key.hashCode();
+		Segment segment = segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+		ArrayList<Result> results;
+
+		synchronized (segment) {
+			results = segment.get(key);
+		}
+
+		if (results != null) {
+			hits.increment();
+			return results;
+		}
+
+		misses.increment();
+		results = search(searchQuery, exact, limit);
+
+		synchronized (this) {
+			// results found before the index was modified again are not kept
+			if (current != modifications) {
+				return results;
+			}
+
+			synchronized (segment) {
+				segment.put(key, results);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Discards every result cached if the index has been modified since they
+	 * were found.
+	 *
+	 * @return number of modifications of the index the cache is now valid for
+	 */
+	private synchronized long validate() {
+		long current = index.getModifications();
+
+		if (current != modifications) {
+			for (Segment segment : segments) {
+				synchronized (segment) {
+					segment.clear();
+				}
+			}
+
+			modifications = current;
+			invalidations.increment();
+		}
+
+		return current;
+	}
+
+	/**
+	 * Searches the index.
+	 *
+	 * @param searchQuery query to search for
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 * @param limit       maximum number of results to return
+	 * @return sorted list of at most limit results
+	 */
+	private ArrayList<Result> search(Query searchQuery, boolean exact, int limit) {
+		return exact ? index.getExactResults(searchQuery, limit) : index.getPartialResults(searchQuery, limit);
+	}
+
+	/**
+	 * Returns the number of searches found in the cache.
+	 *
+	 * @return number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of searches not found in the cache.
+	 *
+	 * @return number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of results discarded because the cache was full.
+	 *
+	 * @return number of evictions
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the number of times every result was discarded because the index
+	 * was modified.
+	 *
+	 * @return number of invalidations
+	 */
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	/**
+	 * Returns the fraction of searches found in the cache.
+	 *
+	 * @return hits divided by the number of searches, or 0 if nothing was
+	 *         searched
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Returns the number of searches currently held by the cache.
+	 *
+	 * @return number of searches cached
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d hits, %d misses (%.2f%% hit rate), %d evictions, %d invalidations, %d searches cached",
+				getHits(), getMisses(), getHitRate() * 100, getEvictions(), getInvalidations(), size());
+	}
+
+	/**
+	 * A search whose results are cached: the words of its query, whether it was
+	 * exact or partial, and the number of results it was limited to.
+	 */
+	private static class Key {
+		/**
+		 * Query searched for.
+		 */
+		private final Query query;
+
+		/**
+		 * True if the search was exact, false if it was partial.
+		 */
+		private final boolean exact;
+
+		/**
+		 * Maximum number of results of the search.
+		 */
+		private final int limit;
+
+		/**
+		 * Creates the key of a search.
+		 *
+		 * @param query query searched for
+		 * @param exact true if the search was exact, false if it was partial
+		 * @param limit maximum number of results of the search
+		 */
+		public Key(Query query, boolean exact, int limit) {
+			this.query = query;
+			this.exact = exact;
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+
+			if (!(o instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) o;
+			return exact == other.exact && limit == other.limit && query.equals(other.query);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(query, exact, limit);
+		}
+	}
+
+	/**
+	 * One segment of the cache, which evicts its least recently used search once
+	 * it holds more searches than its capacity. Access must be synchronized on
+	 * the segment.
+	 */
+	private class Segment extends LinkedHashMap<Key, ArrayList<Result>> {
+		/**
+		 * Unique identifier for serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Number of searches this segment can hold.
+		 */
+		private final int capacity;
+
+		/**
+		 * Initializes an empty segment.
+		 *
+		 * @param capacity number of searches the segment can hold
+		 */
+		public Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, ArrayList<Result>> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * Utility class for searching an InvertedIndex with a list of Query objects.
+ * Results of each search are stored in a TreeMap, sorted by query, so they can
+ * later be written out as pretty JSON. A query that has already been searched
+ * is not searched again. Only the best results of each query are kept, up to
+ * the limit provided, if any.
+ *
+ * @see InvertedIndex#getExactResults(Query, int)
+ * @see InvertedIndex#getPartialResults(Query, int)
+ */
+public class SearchResultsGenerator {
+	/**
+	 * The default maximum number of results kept for each query, when there is
+	 * a limit.
+	 */
+	public static final int DEFAULT_LIMIT = 10;
+
+	/**
+	 * Cache of results in front of the InvertedIndex object searches will be
+	 * performed against.
+	 */
+	private final ResultCache cache;
+
+	/**
+	 * A TreeMap storage structure that holds a query mapped to the results
+	 * found for it.
+	 */
+	private final TreeMap<Query, ArrayList<Result>> searchResults;
+
+	/**
+	 * Maximum number of results kept for each query.
+	 */
+	private final int limit;
+
+	/**
+	 * SearchResultsGenerator constructor. Takes in the InvertedIndex object all
+	 * searches will be performed against. Every result of each query is kept.
+	 *
+	 * @param index InvertedIndex object to search
+	 */
+	public SearchResultsGenerator(InvertedIndex index) {
+		this(index, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * SearchResultsGenerator constructor. Takes in the InvertedIndex object all
+	 * searches will be performed against, and the maximum number of results
+	 * kept for each query.
+	 *
+	 * @param index InvertedIndex object to search
+	 * @param limit maximum number of results kept for each query
+	 */
+	public SearchResultsGenerator(InvertedIndex index, int limit) {
+		this(new ResultCache(index, 0), limit);
+	}
+
+	/**
+	 * SearchResultsGenerator constructor. Takes in the cache of results all
+	 * searches will be looked up in before searching its InvertedIndex object,
+	 * and the maximum number of results kept for each query.
+	 *
+	 * @param cache cache of results of the InvertedIndex object to search
+	 * @param limit maximum number of results kept for each query
+	 */
+	public SearchResultsGenerator(ResultCache cache, int limit) {
+		this.cache = cache;
+		this.searchResults = new TreeMap<>();
+		this.limit = limit;
+	}
+
+	/**
+	 * Returns the maximum number of results kept for each query.
+	 *
+	 * @return maximum number of results, or {@link Integer#MAX_VALUE} if every
+	 *         result is kept
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Searches the index for every query, storing the results of each.
+	 *
+	 * @param searchQueries queries to search for
+	 * @param exact         true if queries should be exact matches, false for
+	 *                      partial matches
+	 * @see #search(Query, boolean)
+	 */
+	public void search(Collection<Query> searchQueries, boolean exact) {
+		for (Query searchQuery : searchQueries) {
+			search(searchQuery, exact);
+		}
+	}
+
+	/**
+	 * Searches the index for a query and stores its results, unless the query
+	 * has already been searched.
+	 *
+	 * @param searchQuery query to search for
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 */
+	public void search(Query searchQuery, boolean exact) {
+		if (!searchResults.containsKey(searchQuery)) {
+			addResults(searchQuery, getResults(searchQuery, exact));
+		}
+	}
+
+	/**
+	 * Finds the best results of a query, up to the limit of this generator.
+	 *
+	 * @param searchQuery query to search for
+	 * @param exact       true if query should be an exact match, false for a
+	 *                    partial match
+	 * @return sorted list of results found for searchQuery
+	 */
+	protected ArrayList<Result> getResults(Query searchQuery, boolean exact) {
+		return cache.getResults(searchQuery, exact, limit);
+	}
+
+	/**
+	 * Stores the results found for a query.
+	 *
+	 * @param searchQuery query the results were found for
+	 * @param results     results found for searchQuery
+	 */
+	protected void addResults(Query searchQuery, ArrayList<Result> results) {
+		searchResults.put(searchQuery, results);
+	}
+
+	/**
+	 * Writes every query and its results as pretty JSON to destination defined
+	 * by path.
+	 *
+	 * @param path file location to write to
+	 * @throws IOException if file is not found are able to be written to
+	 * @see #writeResults(Path, boolean)
+	 */
+	public void writeResults(Path path) throws IOException {
+		writeResults(path, true);
+	}
+
+	/**
+	 * Writes every query and its results as pretty or compact JSON to
+	 * destination defined by path. Calls StreamingJsonWriter in order to do so.
+	 *
+	 * @param path   file location to write to
+	 * @param pretty true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if file is not found are able to be written to
+	 * @see StreamingJsonWriter#asNestedSearchIndex(TreeMap, Path, boolean)
+	 */
+	public void writeResults(Path path, boolean pretty) throws IOException {
+		StreamingJsonWriter.asNestedSearchIndex(searchResults, path, pretty);
+	}
+}
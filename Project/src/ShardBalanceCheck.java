@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Checks that {@link ShardedInvertedIndex} spreads words evenly over its
+ * shards and still gives exactly the same index and search results as the
+ * default storage engine. Words in other alphabets, which sort after
+ * {@code 'z'}, are always checked, and so are the text files found in the
+ * path given as the first argument, if any. Each is checked with several
+ * numbers of shards, and the number of words in each shard is reported.
+ * <p>
+ * Exits with status 1 if the largest shard holds more than
+ * {@link #MAX_RATIO} times the average number of words, or if the index or
+ * any search result differs from the default storage engine. Balance is only
+ * checked once the shards hold at least {@link #MIN_AVERAGE} words on
+ * average, since fewer words are not enough to spread evenly.
+ *
+ * @see ShardedInvertedIndex
+ */
+public class ShardBalanceCheck {
+	/**
+	 * Numbers of shards checked.
+	 */
+	private static final int[] SHARDS = { 4, 8, 16 };
+
+	/**
+	 * Largest number of words a shard may hold, as a multiple of the average.
+	 */
+	private static final double MAX_RATIO = 1.5;
+
+	/**
+	 * Smallest average number of words per shard to check the balance of.
+	 */
+	private static final int MIN_AVERAGE = 100;
+
+	/**
+	 * Number of words in other alphabets checked.
+	 */
+	private static final int OTHER_WORDS = 5000;
+
+	/**
+	 * Number of checks that failed.
+	 */
+	private static int failures = 0;
+
+	/**
+	 * Runs every check.
+	 *
+	 * @param args optionally, the path of the text files to check
+	 * @throws IOException if a file was not able to be read
+	 */
+	public static void main(String[] args) throws IOException {
+		Random random = new Random(42);
+		String[] alphabets = { "\u0430\u0431\u0432\u0433\u0434\u0435\u0436\u0437\u0438\u043A\u043B\u043C\u043D\u043E",
+				"\u03B1\u03B2\u03B3\u03B4\u03B5\u03B6\u03B7\u03B8\u03B9\u03BA\u03BB\u03BC",
+				"\u00E0\u00E9\u00EE\u00F5\u00FC\u00F1\u00E7" };
+
+		for (int shards : SHARDS) {
+			InvertedIndex expected = new InvertedIndex();
+			ShardedInvertedIndex sharded = new ShardedInvertedIndex(shards);
+
+			for (int i = 0; i < OTHER_WORDS; i++) {
+				String alphabet = alphabets[i % alphabets.length];
+				StringBuilder word = new StringBuilder();
+				for (int length = 2 + random.nextInt(8); length > 0; length--) {
+					word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+				expected.add(word.toString(), "other" + i % 10, i);
+				sharded.add(word.toString(), "other" + i % 10, i);
+			}
+
+			check("other alphabets", expected, sharded);
+		}
+
+		if (args.length > 0) {
+			Path path = Path.of(args[0]);
+			InvertedIndex expected = new InvertedIndex();
+			new InvertedIndexGenerator(expected).build(path);
+
+			for (int shards : SHARDS) {
+				ShardedInvertedIndex sharded = new ShardedInvertedIndex(shards);
+				new InvertedIndexGenerator(sharded).build(path);
+				check(path.toString(), expected, sharded);
+			}
+		}
+
+		if (failures > 0) {
+			System.out.println(failures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Checks the balance of a sharded index and compares it with the same words
+	 * stored by the default storage engine, both as a whole and by searching
+	 * for prefixes of its words.
+	 *
+	 * @param name     description of the words checked
+	 * @param expected index holding the same words in the default storage
+	 * @param sharded  sharded index to check
+	 */
+	private static void check(String name, InvertedIndex expected, ShardedInvertedIndex sharded) {
+		int[] sizes = sharded.getShardSizes();
+		int largest = Arrays.stream(sizes).max().orElse(0);
+		double average = Arrays.stream(sizes).sum() / (double) sizes.length;
+		double ratio = largest / average;
+		String check = String.format("%s, %d shards", name, sizes.length);
+
+		if (average >= MIN_AVERAGE) {
+			expect(String.format("%s: largest shard is %.2fx the average %s", check, ratio, Arrays.toString(sizes)),
+					ratio <= MAX_RATIO);
+		} else {
+			System.out.printf("skipped %s: too few words to check the balance of %s%n", check, Arrays.toString(sizes));
+		}
+		expect(check + ": index equals the default engine", expected.toString().equals(sharded.toString()));
+
+		int mismatches = 0;
+		int searched = 0;
+		ArrayList<String> words = new ArrayList<>(expected.get());
+
+		for (int i = 0; i < words.size(); i += 25) {
+			for (int length = 1; length <= Math.min(2, words.get(i).length()); length++) {
+				TreeSet<String> prefix = new TreeSet<>();
+				prefix.add(words.get(i).substring(0, length));
+				Query query = new Query();
+				query.addAll(prefix);
+
+				if (!expected.getPartialResults(query).toString().equals(sharded.getPartialResults(query).toString())) {
+					mismatches++;
+				}
+				searched++;
+			}
+		}
+
+		expect(String.format("%s: %d prefix searches equal the default engine", check, searched), mismatches == 0);
+	}
+
+	/**
+	 * Reports whether a check passed, counting it if it failed.
+	 *
+	 * @param check  description of the check
+	 * @param passed true if the check passed
+	 */
+	private static void expect(String check, boolean passed) {
+		System.out.println((passed ? "ok      " : "FAILED  ") + check);
+		if (!passed) {
+			failures++;
+		}
+	}
+}
@@ -0,0 +1,393 @@
+import java.util.*;
+
+/**
+ * A thread-safe version of {@link InvertedIndex} that partitions words across
+ * several independent {@link ThreadSafeInvertedIndex} shards by their first
+ * character, so threads adding or searching words in different shards never
+ * wait on the same lock. There is no lock over the whole index.
+ * <p>
+ * The letters {@code 'a'} to {@code 'z'} are split into ordered ranges of
+ * shards by how many English stems start with each letter, so each shard
+ * holds about as many words. A letter common enough to need more than one
+ * shard has its words spread over its shards by hash, and so do the words
+ * starting with any other character, such as non-ASCII stems, over every
+ * shard, since how many of them there are depends on the language of the
+ * text. The shards are merged in order when the whole index is read, so it
+ * is still sorted by word, and every word starting with a prefix is found in
+ * the shards of its first letter.
+ * <p>
+ * Each shard counts the positions of its own words in every location, so the
+ * word count of a location is the sum of its count in every shard.
+ * Collections returned by the get methods are unmodifiable views; they should
+ * not be iterated while another thread may still be adding to the index.
+ *
+ * @see ThreadSafeInvertedIndex
+ */
+public class ShardedInvertedIndex extends InvertedIndex {
+	/**
+	 * The default number of shards.
+	 */
+	public static final int DEFAULT_SHARDS = 8;
+
+	/**
+	 * Number of distinct stems starting with each letter from {@code 'a'} to
+	 * {@code 'z'}, per thousand stems, measured over English prose and
+	 * licenses.
+	 */
+	private static final int[] LETTER_WEIGHTS = { 63, 37, 90, 51, 48, 52, 39, 29, 46, 7, 6, 29, 49, 30, 25, 66, 5, 50,
+			105, 60, 33, 32, 32, 9, 5, 4 };
+
+	/**
+	 * Sum of the weights of the letters before each letter, followed by the
+	 * sum of every weight.
+	 */
+	private static final int[] LETTER_STARTS = new int[LETTER_WEIGHTS.length + 1];
+
+	static {
+		for (int i = 0; i < LETTER_WEIGHTS.length; i++) {
+			LETTER_STARTS[i + 1] = LETTER_STARTS[i] + LETTER_WEIGHTS[i];
+		}
+	}
+
+	/**
+	 * Shards of the index, in order of the words they hold.
+	 */
+	private final ThreadSafeInvertedIndex[] shards;
+
+	/**
+	 * Number of the first shard holding the words starting with each letter.
+	 */
+	private final int[] firstShards;
+
+	/**
+	 * Number of shards holding the words starting with each letter.
+	 */
+	private final int[] letterShards;
+
+	/**
+	 * Class constructor that initializes the default number of empty shards
+	 */
+	public ShardedInvertedIndex() {
+		this(DEFAULT_SHARDS);
+	}
+
+	/**
+	 * Class constructor that initializes the provided number of empty shards
+	 *
+	 * @param shards number of shards, at least 1
+	 */
+	public ShardedInvertedIndex(int shards) {
+		super(false);
+		this.shards = new ThreadSafeInvertedIndex[Math.max(shards, 1)];
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i] = new ThreadSafeInvertedIndex();
+		}
+
+		this.firstShards = new int[LETTER_WEIGHTS.length];
+		this.letterShards = new int[LETTER_WEIGHTS.length];
+
+		long total = LETTER_STARTS[LETTER_WEIGHTS.length];
+		for (int i = 0; i < LETTER_WEIGHTS.length; i++) {
+			int first = (int) ((long) LETTER_STARTS[i] * this.shards.length / total);
+			int last = (int) (((long) LETTER_STARTS[i + 1] * this.shards.length - 1) / total);
+			firstShards[i] = first;
+			letterShards[i] = Math.max(last - first + 1, 1);
+		}
+	}
+
+	/**
+	 * Returns the number of the shard holding a word. Each letter owns a share
+	 * of the shards as long as its weight, and its words are placed within
+	 * that share by hash, so a shard split between two letters gets as many
+	 * of each letter's words as its part of their share.
+	 *
+	 * @param word word to find the shard of
+	 * @return number of the shard holding word
+	 */
+	private int shard(String word) {
+		double hash = ((word.hashCode() * 0x9E3779B9) >>> 1) / (double) (1L << 31);
+
+		if (word.isEmpty() || word.charAt(0) < 'a' || word.charAt(0) > 'z') {
+			return (int) (hash * shards.length);
+		}
+
+		int letter = word.charAt(0) - 'a';
+		double start = LETTER_STARTS[letter] + hash * LETTER_WEIGHTS[letter];
+		int shard = (int) (start * shards.length / LETTER_STARTS[LETTER_WEIGHTS.length]);
+		return Math.max(firstShards[letter], Math.min(shard, firstShards[letter] + letterShards[letter] - 1));
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return number of shards
+	 */
+	public int getShards() {
+		return shards.length;
+	}
+
+	/**
+	 * Returns the number of words held by each shard, in order.
+	 *
+	 * @return number of words in each shard
+	 */
+	public int[] getShardSizes() {
+		int[] sizes = new int[shards.length];
+		for (int i = 0; i < shards.length; i++) {
+			sizes[i] = shards[i].get().size();
+		}
+		return sizes;
+	}
+
+	@Override
+	public void add(String word, String location, int position) {
+		shards[shard(word)].add(word, location, position);
+	}
+
+	/**
+	 * Adds the locations and positions stored in other for each of the words
+	 * provided to this index. The words are split by shard first, and each
+	 * shard only holds its own lock while its words are added.
+	 *
+	 * @param other index whose data will be merged into this index
+	 * @param words words of other to merge
+	 */
+	@Override
+	public void addAll(InvertedIndex other, Collection<String> words) {
+		ArrayList<ArrayList<String>> split = new ArrayList<>(shards.length);
+		for (int i = 0; i < shards.length; i++) {
+			split.add(new ArrayList<>());
+		}
+
+		for (String word : words) {
+			split.get(shard(word)).add(word);
+		}
+
+		for (int i = 0; i < shards.length; i++) {
+			if (!split.get(i).isEmpty()) {
+				shards[i].addAll(other, split.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of times any shard has been modified.
+	 *
+	 * @return number of modifications
+	 */
+	@Override
+	public long getModifications() {
+		long modifications = 0;
+		for (ThreadSafeInvertedIndex shard : shards) {
+			modifications += shard.getModifications();
+		}
+		return modifications;
+	}
+
+	@Override
+	public void trackLocationWords() {
+		for (ThreadSafeInvertedIndex shard : shards) {
+			shard.trackLocationWords();
+		}
+	}
+
+	@Override
+	public boolean remove(String location) {
+		boolean removed = false;
+		for (ThreadSafeInvertedIndex shard : shards) {
+			removed |= shard.remove(location);
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns a view of every shard's words in order, which is sorted by word
+	 * since the words of every shard are merged by word as they are read.
+	 *
+	 * @return sorted map of words to locations to positions
+	 */
+	@Override
+	protected Map<String, Map<String, ? extends Collection<Integer>>> asMap() {
+		return new AbstractMap<>() {
+			@Override
+			public Set<Entry<String, Map<String, ? extends Collection<Integer>>>> entrySet() {
+				return new AbstractSet<>() {
+					@Override
+					public Iterator<Entry<String, Map<String, ? extends Collection<Integer>>>> iterator() {
+						return new Iterator<>() {
+							/**
+							 * Next word of every shard with words left, ordered by word.
+							 */
+							private final PriorityQueue<ShardCursor> cursors = new PriorityQueue<>();
+
+							{
+								for (ThreadSafeInvertedIndex shard : shards) {
+									ShardCursor cursor = new ShardCursor(shard.asMap().entrySet().iterator());
+									if (cursor.entry != null) {
+										cursors.add(cursor);
+									}
+								}
+							}
+
+							@Override
+							public boolean hasNext() {
+								return !cursors.isEmpty();
+							}
+
+							@Override
+							public Entry<String, Map<String, ? extends Collection<Integer>>> next() {
+								if (!hasNext()) {
+									throw new NoSuchElementException();
+								}
+								ShardCursor cursor = cursors.poll();
+								var entry = cursor.entry;
+								if (cursor.advance()) {
+									cursors.add(cursor);
+								}
+								return Map.entry(entry.getKey(), entry.getValue());
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						int size = 0;
+						for (ThreadSafeInvertedIndex shard : shards) {
+							size += shard.get().size();
+						}
+						return size;
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * The next word of a shard while its words are merged with the words of
+	 * every other shard.
+	 */
+	private static class ShardCursor implements Comparable<ShardCursor> {
+		/**
+		 * Iterator over the words of the shard after the current one.
+		 */
+		private final Iterator<? extends Map.Entry<String, ? extends Map<String, ? extends Collection<Integer>>>> iterator;
+
+		/**
+		 * The current word of the shard, or null once every word has been read.
+		 */
+		private Map.Entry<String, ? extends Map<String, ? extends Collection<Integer>>> entry;
+
+		/**
+		 * Creates a cursor at the first word of a shard.
+		 *
+		 * @param iterator iterator over the words of the shard
+		 */
+		public ShardCursor(Iterator<? extends Map.Entry<String, ? extends Map<String, ? extends Collection<Integer>>>> iterator) {
+			this.iterator = iterator;
+			advance();
+		}
+
+		/**
+		 * Moves to the next word of the shard.
+		 *
+		 * @return true if the shard has another word
+		 */
+		public boolean advance() {
+			entry = iterator.hasNext() ? iterator.next() : null;
+			return entry != null;
+		}
+
+		@Override
+		public int compareTo(ShardCursor other) {
+			return entry.getKey().compareTo(other.entry.getKey());
+		}
+	}
+
+	@Override
+	protected TreeMap<String, Integer> getWordCounts() {
+		TreeMap<String, Integer> counts = new TreeMap<>();
+
+		for (ThreadSafeInvertedIndex shard : shards) {
+			for (var entry : shard.getWordCounts().entrySet()) {
+				counts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+			}
+		}
+
+		return counts;
+	}
+
+	@Override
+	public boolean contains(String word) {
+		return shards[shard(word)].contains(word);
+	}
+
+	@Override
+	public boolean contains(String word, String location) {
+		return shards[shard(word)].contains(word, location);
+	}
+
+	@Override
+	public boolean contains(String word, String location, int position) {
+		return shards[shard(word)].contains(word, location, position);
+	}
+
+	@Override
+	public Collection<String> get() {
+		return Collections.unmodifiableSet(asMap().keySet());
+	}
+
+	@Override
+	public Collection<String> get(String word) {
+		return shards[shard(word)].get(word);
+	}
+
+	@Override
+	public Collection<Integer> get(String word, String location) {
+		return shards[shard(word)].get(word, location);
+	}
+
+	@Override
+	public Collection<String> getLocations() {
+		return Collections.unmodifiableSet(getWordCounts().keySet());
+	}
+
+	@Override
+	public Integer getWordCount(String location) {
+		int count = 0;
+		for (ThreadSafeInvertedIndex shard : shards) {
+			count += shard.getWordCount(location);
+		}
+		return count;
+	}
+
+	@Override
+	protected void addCounts(String word, Map<String, Integer> counts) {
+		shards[shard(word)].addCounts(word, counts);
+	}
+
+	/**
+	 * Adds the number of positions every word starting with prefix was found at
+	 * in each of its locations to the running count kept for that location.
+	 * Only the shards holding the first letter of prefix are searched, unless
+	 * prefix is empty or does not start with a letter from {@code 'a'} to
+	 * {@code 'z'}.
+	 *
+	 * @param prefix prefix of the words whose locations will be counted
+	 * @param counts running count of matches for each location
+	 */
+	@Override
+	protected void addPartialCounts(String prefix, Map<String, Integer> counts) {
+		int first = 0;
+		int last = shards.length - 1;
+
+		if (!prefix.isEmpty() && prefix.charAt(0) >= 'a' && prefix.charAt(0) <= 'z') {
+			int letter = prefix.charAt(0) - 'a';
+			first = firstShards[letter];
+			last = first + letterShards[letter] - 1;
+		}
+
+		for (int i = first; i <= last; i++) {
+			shards[i].addPartialCounts(prefix, counts);
+		}
+	}
+}
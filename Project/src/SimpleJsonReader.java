@@ -0,0 +1,262 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+/**
+ * Reads the "pretty" JSON written by {@link SimpleJsonWriter} back into data
+ * structures. The input is streamed one token at a time through a fixed size
+ * buffer, so files much larger than the heap can be read.
+ * <p>
+ * Strings are read exactly as SimpleJsonWriter writes them, which is without
+ * escape sequences.
+ * <p>
+ * Warning: This class is not thread-safe. If multiple threads access the same
+ * reader concurrently, access must be synchronized externally.
+ *
+ * @see SimpleJsonWriter
+ */
+public class SimpleJsonReader {
+	/**
+	 * Source of the characters being read.
+	 */
+	private final Reader reader;
+
+	/**
+	 * Buffer of characters read from reader.
+	 */
+	private final char[] buffer;
+
+	/**
+	 * Number of characters currently stored in buffer.
+	 */
+	private int length;
+
+	/**
+	 * Index of the next character to read from buffer.
+	 */
+	private int index;
+
+	/**
+	 * Number of characters read before the current buffer.
+	 */
+	private long offset;
+
+	/**
+	 * Reusable builder for the strings being read.
+	 */
+	private final StringBuilder token;
+
+	/**
+	 * Locations read so far, so every word found in the same location shares
+	 * one String instead of a copy per word.
+	 */
+	private final HashMap<String, String> locations;
+
+	/**
+	 * Initializes a JSON reader over the provided reader.
+	 *
+	 * @param reader the reader to read JSON from
+	 */
+	public SimpleJsonReader(Reader reader) {
+		this.reader = reader;
+		this.buffer = new char[1 << 16];
+		this.length = 0;
+		this.index = 0;
+		this.offset = 0;
+		this.token = new StringBuilder();
+		this.locations = new HashMap<>();
+	}
+
+	/**
+	 * Reads a pretty JSON inverted index, as written by
+	 * {@link SimpleJsonWriter#asInvertedIndex(java.util.Map, Path)}, into an
+	 * InvertedIndex. Word counts are rebuilt from the positions read, the same
+	 * way they are counted during a build, so they always match the counts file
+	 * written alongside the index.
+	 *
+	 * @param path  the file path to read from
+	 * @param index index the words, locations and positions will be added to
+	 * @throws IOException if the file is not able to be read or is not a JSON
+	 *                     inverted index
+	 */
+	public static void asInvertedIndex(Path path, InvertedIndex index) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			new SimpleJsonReader(reader).readInvertedIndex(index);
+		}
+	}
+
+	/**
+	 * Reads a pretty JSON inverted index into an InvertedIndex.
+	 *
+	 * @param index index the words, locations and positions will be added to
+	 * @throws IOException if unable to read or the input is not a JSON inverted
+	 *                     index
+	 */
+	public void readInvertedIndex(InvertedIndex index) throws IOException {
+		expect('{');
+
+		if (!tryConsume('}')) {
+			do {
+				String word = readString();
+				expect(':');
+				expect('{');
+
+				if (!tryConsume('}')) {
+					do {
+						String location = locations.computeIfAbsent(readString(), key -> key);
+						expect(':');
+						expect('[');
+
+						if (!tryConsume(']')) {
+							do {
+								index.add(word, location, readInt());
+							} while (tryConsume(','));
+							expect(']');
+						}
+					} while (tryConsume(','));
+					expect('}');
+				}
+			} while (tryConsume(','));
+			expect('}');
+		}
+
+		if (peek() != -1) {
+			throw error("end of input");
+		}
+	}
+
+	/**
+	 * Makes sure there is at least one character left in buffer, reading more
+	 * from reader if needed.
+	 *
+	 * @return true if a character is available, false at the end of input
+	 * @throws IOException if unable to read
+	 */
+	private boolean fill() throws IOException {
+		if (index == length) {
+			offset += length;
+			length = Math.max(reader.read(buffer, 0, buffer.length), 0);
+			index = 0;
+		}
+		return index < length;
+	}
+
+	/**
+	 * Returns the next non-whitespace character without consuming it.
+	 *
+	 * @return next non-whitespace character, or -1 at the end of input
+	 * @throws IOException if unable to read
+	 */
+	private int peek() throws IOException {
+		while (fill()) {
+			char c = buffer[index];
+			if (!Character.isWhitespace(c)) {
+				return c;
+			}
+			index++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the next character, including whitespace, and consumes it.
+	 *
+	 * @return next character, or -1 at the end of input
+	 * @throws IOException if unable to read
+	 */
+	private int next() throws IOException {
+		return fill() ? buffer[index++] : -1;
+	}
+
+	/**
+	 * Consumes the next non-whitespace character if it is the one expected.
+	 *
+	 * @param expected the character expected
+	 * @return true if the character was consumed, false otherwise
+	 * @throws IOException if unable to read
+	 */
+	private boolean tryConsume(char expected) throws IOException {
+		if (peek() == expected) {
+			index++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Consumes the next non-whitespace character, which must be the one
+	 * expected.
+	 *
+	 * @param expected the character expected
+	 * @throws IOException if unable to read or a different character is found
+	 */
+	private void expect(char expected) throws IOException {
+		if (!tryConsume(expected)) {
+			throw error("'" + expected + "'");
+		}
+	}
+
+	/**
+	 * Reads a string surrounded by {@code " "} quotation marks.
+	 *
+	 * @return the string read, without quotation marks
+	 * @throws IOException if unable to read or no string is found
+	 */
+	private String readString() throws IOException {
+		expect('"');
+		token.setLength(0);
+
+		int c;
+		while ((c = next()) != '"') {
+			if (c == -1) {
+				throw error("'\"'");
+			}
+			token.append((char) c);
+		}
+
+		return token.toString();
+	}
+
+	/**
+	 * Reads a non-negative integer.
+	 *
+	 * @return the integer read
+	 * @throws IOException if unable to read or no integer is found
+	 */
+	private int readInt() throws IOException {
+		int c = peek();
+
+		if (c < '0' || c > '9') {
+			throw error("a number");
+		}
+
+		long value = 0;
+		while (c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+
+			if (value > Integer.MAX_VALUE) {
+				throw error("a smaller number");
+			}
+
+			index++;
+			c = fill() ? buffer[index] : -1;
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Creates an exception describing what was expected at the current
+	 * position in the input.
+	 *
+	 * @param expected description of what was expected
+	 * @return exception to throw
+	 */
+	private IOException error(String expected) {
+		return new IOException("Expected " + expected + " at character " + (offset + index) + " of JSON input.");
+	}
+}
@@ -289,12 +289,12 @@ public class SimpleJsonWriter {
 	 * @param level    level which the writer will indent
 	 * @throws IOException when file specified in writer can not be found or written to
 	 */
-	public static void asInvertedIndex(TreeMap<String, TreeMap<String, TreeSet<Integer>>> elements, Writer writer, int level) throws IOException {
+	public static void asInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements, Writer writer, int level) throws IOException {
 		writer.write("{");
 		var iterator = elements.entrySet().iterator();
 
 		if (iterator.hasNext()) {
-			Map.Entry<String, TreeMap<String, TreeSet<Integer>>> entry = iterator.next();
+			var entry = iterator.next();
 			writer.write('\n');
 			quote(entry.getKey(), writer, level + 1);
 			writer.write(": ");
@@ -302,7 +302,7 @@ public class SimpleJsonWriter {
 		}
 
 		while (iterator.hasNext()) {
-			Map.Entry<String, TreeMap<String, TreeSet<Integer>>> entry = iterator.next();
+			var entry = iterator.next();
 			writer.write(",\n");
 			quote(entry.getKey(), writer, level + 1);
 			writer.write(": ");
@@ -319,9 +319,9 @@ public class SimpleJsonWriter {
 	 * @param elements the elements to write
 	 * @param path     the file path to use
 	 * @throws IOException if file is not able to be written to
-	 * @see #asInvertedIndex(TreeMap, Writer, int)
+	 * @see #asInvertedIndex(Map, Writer, int)
 	 */
-	public static void asInvertedIndex(TreeMap<String, TreeMap<String, TreeSet<Integer>>> elements, Path path) throws IOException {
+	public static void asInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements, Path path) throws IOException {
 		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
 			asInvertedIndex(elements, writer, 0);
 		}
@@ -333,9 +333,9 @@ public class SimpleJsonWriter {
 	 * @param elements the elements to use
 	 * @return a {@link String} containing the elements in pretty JSON format
 	 * @throws IOException if file is not able to be written to
-	 * @see #asInvertedIndex(TreeMap, Writer, int)
+	 * @see #asInvertedIndex(Map, Writer, int)
 	 */
-	public static String asInvertedIndex(TreeMap<String, TreeMap<String, TreeSet<Integer>>> elements) throws IOException {
+	public static String asInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements) throws IOException {
 		StringWriter writer = new StringWriter();
 		asInvertedIndex(elements, writer, 0);
 		return writer.toString();
@@ -356,9 +356,9 @@ public class SimpleJsonWriter {
 			Result searchResult = iterator.next();
 			writer.write("\n");
 			indent("{\n", writer, level);
-			indent("\"where\": " + "\"" + searchResult.get("where") + "\",\n", writer, level + 1);
-			indent("\"count\": " + searchResult.get("count") + ",\n", writer, level + 1);
-			indent("\"score\": " + searchResult.get("score") + "\n", writer, level + 1);
+			indent("\"where\": " + "\"" + searchResult.getWhere() + "\",\n", writer, level + 1);
+			indent("\"count\": " + searchResult.getCount() + ",\n", writer, level + 1);
+			indent("\"score\": " + searchResult.getFormattedScore() + "\n", writer, level + 1);
 			indent("}", writer, level);
 		}
 
@@ -366,9 +366,9 @@ public class SimpleJsonWriter {
 			Result searchResult = iterator.next();
 			writer.write(",\n");
 			indent("{\n", writer, level);
-			indent("\"where\": " + "\"" + searchResult.get("where") + "\",\n", writer, level + 1);
-			indent("\"count\": " + searchResult.get("count") + ",\n", writer, level + 1);
-			indent("\"score\": " + searchResult.get("score") + "\n", writer, level + 1);
+			indent("\"where\": " + "\"" + searchResult.getWhere() + "\",\n", writer, level + 1);
+			indent("\"count\": " + searchResult.getCount() + ",\n", writer, level + 1);
+			indent("\"score\": " + searchResult.getFormattedScore() + "\n", writer, level + 1);
 			indent("}", writer, level);
 		}
 	}
@@ -0,0 +1,206 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of the stem of every word stemmed, so words
+ * that are seen again do not have to go through the stemming algorithm. The
+ * cache is split into segments by the hash of each word, each with its own
+ * lock, and each segment evicts its least recently used word once it is full.
+ * The number of hits and misses is counted for reporting. Words that are not
+ * found are stemmed by the calling thread's stemmer from a
+ * {@link StemmerPool}, and since every stem depends on the stemming algorithm,
+ * a cache only ever uses the algorithm of its pool.
+ * <p>
+ * A cache with a capacity of 0 stores nothing, and every word is counted as a
+ * miss.
+ *
+ * @see StemmerPool
+ */
+public class StemCache {
+	/**
+	 * The default number of words a cache can hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * Number of segments a cache is split into.
+	 */
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * Segments of the cache, mapping words to their stems in least recently
+	 * used order, or an empty array if the cache stores nothing.
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * Stemmers used to stem words not found in the cache.
+	 */
+	private final StemmerPool stemmers;
+
+	/**
+	 * Number of words found in the cache.
+	 */
+	private final LongAdder hits;
+
+	/**
+	 * Number of words not found in the cache.
+	 */
+	private final LongAdder misses;
+
+	/**
+	 * Initializes a cache that holds up to the default number of words, stemmed
+	 * with the default algorithm.
+	 */
+	public StemCache() {
+		this(DEFAULT_CAPACITY, new StemmerPool());
+	}
+
+	/**
+	 * Initializes a cache that holds up to capacity words, stemmed by the
+	 * provided stemmers.
+	 *
+	 * @param capacity the number of words the cache can hold, or 0 to store
+	 *                 nothing
+	 * @param stemmers the stemmers used to stem words not found in the cache
+	 */
+	public StemCache(int capacity, StemmerPool stemmers) {
+		this.stemmers = stemmers;
+		this.segments = new Segment[capacity > 0 ? SEGMENTS : 0];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment((capacity + SEGMENTS - 1) / SEGMENTS);
+		}
+
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+	}
+
+	/**
+	 * Returns the stem of a word, from the cache if the word has been stemmed
+	 * before, otherwise by stemming it with the calling thread's stemmer.
+	 *
+	 * @param word the word to stem
+	 * @return the stem of word
+	 */
+	public String stem(CharSequence word) {
+		if (segments.length == 0) {
+			misses.increment();
+			return stemmers.get().stem(word).toString();
+		}
+
+		String key = word.toString();
+		int hash = key.hashCode();
+		Segment segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+		String stem;
+
+		synchronized (segment) {
+			stem = segment.get(key);
+		}
+
+		if (stem != null) {
+			hits.increment();
+			return stem;
+		}
+
+		misses.increment();
+		stem = stemmers.get().stem(key).toString();
+
+		synchronized (segment) {
+			segment.put(key, stem);
+		}
+		return stem;
+	}
+
+	/**
+	 * Returns the stemmers used to stem words not found in the cache.
+	 *
+	 * @return pool of stemmers
+	 */
+	public StemmerPool getStemmers() {
+		return stemmers;
+	}
+
+	/**
+	 * Returns the number of words found in the cache.
+	 *
+	 * @return number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of words not found in the cache.
+	 *
+	 * @return number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the fraction of words found in the cache.
+	 *
+	 * @return hits divided by the number of words looked up, or 0 if no words
+	 *         were looked up
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Returns the number of words currently held by the cache.
+	 *
+	 * @return number of words cached
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d hits, %d misses (%.2f%% hit rate), %d words cached", getHits(), getMisses(),
+				getHitRate() * 100, size());
+	}
+
+	/**
+	 * One segment of the cache, which evicts its least recently used word once
+	 * it holds more words than its capacity. Access must be synchronized on the
+	 * segment.
+	 */
+	private static class Segment extends LinkedHashMap<String, String> {
+		/**
+		 * Unique identifier for serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Number of words this segment can hold.
+		 */
+		private final int capacity;
+
+		/**
+		 * Initializes an empty segment.
+		 *
+		 * @param capacity number of words the segment can hold
+		 */
+		public Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > capacity;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
+/**
+ * Hands out one {@link SnowballStemmer} per thread for a stemming algorithm.
+ * SnowballStemmer is not thread-safe, so stemmers can not be shared between
+ * threads, but each thread keeps reusing its own stemmer instead of creating a
+ * new one for every file or query file.
+ *
+ * @see StemCache
+ */
+public class StemmerPool {
+	/**
+	 * The default stemmer algorithm.
+	 */
+	public static final SnowballStemmer.ALGORITHM DEFAULT = SnowballStemmer.ALGORITHM.ENGLISH;
+
+	/**
+	 * The stemming algorithm used by every stemmer.
+	 */
+	private final SnowballStemmer.ALGORITHM algorithm;
+
+	/**
+	 * The stemmer of each thread, created the first time a thread asks for one.
+	 */
+	private final ThreadLocal<Stemmer> stemmers;
+
+	/**
+	 * Initializes a pool of stemmers using the default algorithm.
+	 */
+	public StemmerPool() {
+		this(DEFAULT);
+	}
+
+	/**
+	 * Initializes a pool of stemmers using the provided algorithm.
+	 *
+	 * @param algorithm the stemming algorithm to use
+	 */
+	public StemmerPool(SnowballStemmer.ALGORITHM algorithm) {
+		this.algorithm = algorithm;
+		this.stemmers = ThreadLocal.withInitial(() -> new SnowballStemmer(algorithm));
+	}
+
+	/**
+	 * Returns the stemmer of the calling thread. It must not be passed on to
+	 * another thread.
+	 *
+	 * @return stemmer of the calling thread
+	 */
+	public Stemmer get() {
+		return stemmers.get();
+	}
+
+	/**
+	 * Returns the stemming algorithm used by every stemmer.
+	 *
+	 * @return stemming algorithm
+	 */
+	public SnowballStemmer.ALGORITHM getAlgorithm() {
+		return algorithm;
+	}
+}
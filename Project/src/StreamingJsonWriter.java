@@ -0,0 +1,676 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the same JSON as {@link SimpleJsonWriter} straight into a large byte
+ * buffer that is flushed to a channel, without building any intermediate
+ * Strings. Integers are written digit by digit, Strings are encoded as UTF-8
+ * as they are copied, and every newline together with its indentation is
+ * written from a cached array.
+ * <p>
+ * The JSON is written either "pretty", byte for byte the same as
+ * SimpleJsonWriter, or compact, without any newlines or indentation. A writer
+ * created without a channel keeps everything written in memory, so separate
+ * parts of the same file can be rendered by separate threads and then copied
+ * into the file in order.
+ * <p>
+ * Warning: This class is not thread-safe. If multiple threads access the same
+ * writer concurrently, access must be synchronized externally.
+ *
+ * @see SimpleJsonWriter
+ */
+public class StreamingJsonWriter implements Closeable {
+	/**
+	 * Size of the buffer written to before it is flushed to the channel.
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Initial size of the buffer of a writer that keeps everything in memory.
+	 */
+	private static final int MEMORY_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Number of positions rendered by one task when an inverted index is
+	 * written by multiple threads.
+	 */
+	private static final int CHUNK_POSITIONS = 1 << 16;
+
+	/**
+	 * A newline followed by the indentation of each level, indexed by level.
+	 */
+	private static final byte[][] NEWLINES = new byte[8][];
+
+	static {
+		for (int level = 0; level < NEWLINES.length; level++) {
+			NEWLINES[level] = ("\n" + "\t".repeat(level)).getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Channel the JSON is written to, or null if it is kept in memory.
+	 */
+	private final WritableByteChannel channel;
+
+	/**
+	 * True to write pretty JSON, false to write compact JSON.
+	 */
+	private final boolean pretty;
+
+	/**
+	 * Bytes written but not yet flushed to channel.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * Number of bytes currently stored in buffer.
+	 */
+	private int length;
+
+	/**
+	 * Initializes a JSON writer over the provided channel.
+	 *
+	 * @param channel the channel to write JSON to
+	 * @param pretty  true to write pretty JSON, false to write compact JSON
+	 */
+	public StreamingJsonWriter(WritableByteChannel channel, boolean pretty) {
+		this.channel = channel;
+		this.pretty = pretty;
+		this.buffer = new byte[BUFFER_SIZE];
+		this.length = 0;
+	}
+
+	/**
+	 * Initializes a JSON writer that keeps everything written in memory, until
+	 * it is copied to another writer with {@link #writeTo(StreamingJsonWriter)}.
+	 *
+	 * @param pretty true to write pretty JSON, false to write compact JSON
+	 */
+	public StreamingJsonWriter(boolean pretty) {
+		this.channel = null;
+		this.pretty = pretty;
+		this.buffer = new byte[MEMORY_BUFFER_SIZE];
+		this.length = 0;
+	}
+
+	/**
+	 * Initializes a JSON writer over a file, replacing it if it already exists.
+	 *
+	 * @param path   the file path to write JSON to
+	 * @param pretty true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if the file is not able to be opened
+	 */
+	public StreamingJsonWriter(Path path, boolean pretty) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE), pretty);
+	}
+
+	/**
+	 * Writes the elements as an inverted index to file.
+	 *
+	 * @param elements the elements to write
+	 * @param path     the file path to use
+	 * @param pretty   true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if file is not able to be written to
+	 * @see #writeInvertedIndex(Map)
+	 */
+	public static void asInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements, Path path, boolean pretty) throws IOException {
+		try (StreamingJsonWriter writer = new StreamingJsonWriter(path, pretty)) {
+			writer.writeInvertedIndex(elements);
+		}
+	}
+
+	/**
+	 * Writes the elements as an inverted index to file, using the work queue to
+	 * render ranges of words at the same time.
+	 *
+	 * @param elements the elements to write
+	 * @param path     the file path to use
+	 * @param pretty   true to write pretty JSON, false to write compact JSON
+	 * @param queue    the work queue to render the words with
+	 * @throws IOException if file is not able to be written to
+	 * @see #writeInvertedIndex(Map, WorkQueue)
+	 */
+	public static void asInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements, Path path, boolean pretty, WorkQueue queue) throws IOException {
+		try (StreamingJsonWriter writer = new StreamingJsonWriter(path, pretty)) {
+			writer.writeInvertedIndex(elements, queue);
+		}
+	}
+
+	/**
+	 * Writes the elements as a JSON object to file.
+	 *
+	 * @param elements the elements to write
+	 * @param path     the file path to use
+	 * @param pretty   true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if file is not able to be written to
+	 * @see #writeObject(Map)
+	 */
+	public static void asObject(Map<String, Integer> elements, Path path, boolean pretty) throws IOException {
+		try (StreamingJsonWriter writer = new StreamingJsonWriter(path, pretty)) {
+			writer.writeObject(elements);
+		}
+	}
+
+	/**
+	 * Writes every query and its results to file.
+	 *
+	 * @param elements the elements to write
+	 * @param path     the file path to use
+	 * @param pretty   true to write pretty JSON, false to write compact JSON
+	 * @throws IOException if file is not able to be written to
+	 * @see #writeNestedSearchIndex(TreeMap)
+	 */
+	public static void asNestedSearchIndex(TreeMap<Query, ArrayList<Result>> elements, Path path, boolean pretty) throws IOException {
+		try (StreamingJsonWriter writer = new StreamingJsonWriter(path, pretty)) {
+			writer.writeNestedSearchIndex(elements);
+		}
+	}
+
+	/**
+	 * Writes the elements as an inverted index.
+	 *
+	 * @param elements the elements to write
+	 * @throws IOException if unable to write
+	 * @see SimpleJsonWriter#asInvertedIndex(Map, java.io.Writer, int)
+	 */
+	public void writeInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements) throws IOException {
+		write('{');
+		boolean first = true;
+
+		for (var entry : elements.entrySet()) {
+			writeIndexEntry(entry.getKey(), entry.getValue(), first);
+			first = false;
+		}
+
+		newline(0);
+		write('}');
+	}
+
+	/**
+	 * Writes the elements as an inverted index, exactly as
+	 * {@link #writeInvertedIndex(Map)} does. The sorted words are split into
+	 * ranges of about the same number of positions, each range is rendered into
+	 * memory by the work queue, and the rendered ranges are copied in order as
+	 * they finish. At most two ranges per worker thread are kept in memory at
+	 * once.
+	 *
+	 * @param elements the elements to write
+	 * @param queue    the work queue to render the words with
+	 * @throws IOException if unable to write
+	 */
+	public void writeInvertedIndex(Map<String, ? extends Map<String, ? extends Collection<Integer>>> elements, WorkQueue queue) throws IOException {
+		write('{');
+
+		ArrayDeque<IndexChunk> pending = new ArrayDeque<>();
+		int maxPending = queue.size() * 2;
+		IndexChunk chunk = new IndexChunk(true);
+
+		for (var entry : elements.entrySet()) {
+			chunk.add(entry);
+
+			if (chunk.positions >= CHUNK_POSITIONS) {
+				if (pending.size() == maxPending) {
+					pending.removeFirst().await().writeTo(this);
+				}
+
+				queue.execute(chunk);
+				pending.addLast(chunk);
+				chunk = new IndexChunk(false);
+			}
+		}
+
+		while (!pending.isEmpty()) {
+			pending.removeFirst().await().writeTo(this);
+		}
+		chunk.run();
+		chunk.await().writeTo(this);
+
+		newline(0);
+		write('}');
+	}
+
+	/**
+	 * Writes one word of an inverted index along with its locations and
+	 * positions, preceded by a comma unless it is the first word.
+	 *
+	 * @param word      the word to write
+	 * @param locations the locations and positions of word
+	 * @param first     true if word is the first word of the index
+	 * @throws IOException if unable to write
+	 */
+	public void writeIndexEntry(String word, Map<String, ? extends Collection<Integer>> locations, boolean first) throws IOException {
+		if (!first) {
+			write(',');
+		}
+		newline(1);
+		quote(word);
+		colon();
+		write('{');
+
+		boolean firstLocation = true;
+		for (var entry : locations.entrySet()) {
+			if (!firstLocation) {
+				write(',');
+			}
+			firstLocation = false;
+
+			newline(2);
+			quote(entry.getKey());
+			colon();
+			write('[');
+
+			boolean firstPosition = true;
+			for (Integer position : entry.getValue()) {
+				if (!firstPosition) {
+					write(',');
+				}
+				firstPosition = false;
+
+				newline(4);
+				writeInt(position);
+			}
+
+			newline(3);
+			write(']');
+		}
+
+		newline(0);
+		write('}');
+	}
+
+	/**
+	 * Copies everything written to this writer to the other writer. Should only
+	 * be used on a writer that keeps everything in memory.
+	 *
+	 * @param other the writer to copy to
+	 * @throws IOException if unable to write to the other writer
+	 */
+	public void writeTo(StreamingJsonWriter other) throws IOException {
+		other.write(buffer, length);
+	}
+
+	/**
+	 * Writes the elements as a JSON object.
+	 *
+	 * @param elements the elements to write
+	 * @throws IOException if unable to write
+	 * @see SimpleJsonWriter#asObject(Map, java.io.Writer, int)
+	 */
+	public void writeObject(Map<String, Integer> elements) throws IOException {
+		write('{');
+		boolean first = true;
+
+		for (var entry : elements.entrySet()) {
+			if (!first) {
+				write(',');
+			}
+			first = false;
+
+			newline(1);
+			quote(entry.getKey());
+			colon();
+			writeInt(entry.getValue());
+		}
+
+		newline(0);
+		write('}');
+	}
+
+	/**
+	 * Writes every query and its results.
+	 *
+	 * @param elements the elements to write
+	 * @throws IOException if unable to write
+	 * @see SimpleJsonWriter#asNestedSearchIndex(TreeMap, java.io.Writer, int)
+	 */
+	public void writeNestedSearchIndex(TreeMap<Query, ArrayList<Result>> elements) throws IOException {
+		write('{');
+		boolean first = true;
+
+		for (var entry : elements.entrySet()) {
+			if (!first) {
+				write(',');
+			}
+			first = false;
+
+			newline(1);
+			quote(entry.getKey().toString());
+			colon();
+			write('[');
+
+			boolean firstResult = true;
+			for (Result result : entry.getValue()) {
+				if (!firstResult) {
+					write(',');
+				}
+				firstResult = false;
+
+				newline(2);
+				write('{');
+				newline(3);
+				quote("where");
+				colon();
+				quote(result.getWhere());
+				write(',');
+				newline(3);
+				quote("count");
+				colon();
+				writeInt(result.getCount());
+				write(',');
+				newline(3);
+				quote("score");
+				colon();
+				writeString(result.getFormattedScore());
+				newline(2);
+				write('}');
+			}
+
+			newline(1);
+			write(']');
+		}
+
+		newline(0);
+		write('}');
+	}
+
+	/**
+	 * Writes a newline followed by the indentation of level, or nothing if
+	 * writing compact JSON.
+	 *
+	 * @param level the number of times to indent
+	 * @throws IOException if unable to write
+	 */
+	private void newline(int level) throws IOException {
+		if (pretty) {
+			write(NEWLINES[level], NEWLINES[level].length);
+		}
+	}
+
+	/**
+	 * Writes the separator between a key and its value.
+	 *
+	 * @throws IOException if unable to write
+	 */
+	private void colon() throws IOException {
+		write(':');
+
+		if (pretty) {
+			write(' ');
+		}
+	}
+
+	/**
+	 * Writes the element surrounded by {@code " "} quotation marks.
+	 *
+	 * @param element the element to write
+	 * @throws IOException if unable to write
+	 */
+	private void quote(String element) throws IOException {
+		write('"');
+		writeString(element);
+		write('"');
+	}
+
+	/**
+	 * Writes the element as UTF-8. ASCII characters are copied into the buffer
+	 * one at a time; any other String is encoded all at once.
+	 *
+	 * @param element the element to write
+	 * @throws IOException if unable to write
+	 */
+	private void writeString(String element) throws IOException {
+		int size = element.length();
+
+		if (size <= buffer.length) {
+			ensure(size);
+			int start = length;
+
+			for (int i = 0; i < size; i++) {
+				char c = element.charAt(i);
+
+				if (c >= 0x80) {
+					length = start;
+					byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+					write(bytes, bytes.length);
+					return;
+				}
+				buffer[length++] = (byte) c;
+			}
+		} else {
+			byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+			write(bytes, bytes.length);
+		}
+	}
+
+	/**
+	 * Writes the decimal digits of value without converting it to a String.
+	 *
+	 * @param value the value to write
+	 * @throws IOException if unable to write
+	 */
+	private void writeInt(int value) throws IOException {
+		ensure(11);
+		long remaining = value;
+
+		if (remaining < 0) {
+			buffer[length++] = '-';
+			remaining = -remaining;
+		}
+
+		int end = length + 1;
+		for (long digits = remaining / 10; digits > 0; digits /= 10) {
+			end++;
+		}
+
+		for (int i = end - 1; i >= length; i--) {
+			buffer[i] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		}
+
+		length = end;
+	}
+
+	/**
+	 * Writes a single ASCII character.
+	 *
+	 * @param c the character to write
+	 * @throws IOException if unable to write
+	 */
+	private void write(char c) throws IOException {
+		ensure(1);
+		buffer[length++] = (byte) c;
+	}
+
+	/**
+	 * Writes the first size bytes of an array.
+	 *
+	 * @param bytes the bytes to write
+	 * @param size  the number of bytes to write
+	 * @throws IOException if unable to write
+	 */
+	private void write(byte[] bytes, int size) throws IOException {
+		if (channel != null && size > buffer.length) {
+			flush();
+			ByteBuffer source = ByteBuffer.wrap(bytes, 0, size);
+			while (source.hasRemaining()) {
+				channel.write(source);
+			}
+		} else {
+			ensure(size);
+			System.arraycopy(bytes, 0, buffer, length, size);
+			length += size;
+		}
+	}
+
+	/**
+	 * Makes sure there is room for size more bytes in buffer, flushing it to the
+	 * channel if there is not. A writer without a channel grows its buffer
+	 * instead.
+	 *
+	 * @param size number of bytes about to be written
+	 * @throws IOException if unable to flush
+	 */
+	private void ensure(int size) throws IOException {
+		if (length + size > buffer.length) {
+			if (channel == null) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + size));
+			} else {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Writes every byte stored in buffer to the channel. Does nothing for a
+	 * writer that keeps everything in memory.
+	 *
+	 * @throws IOException if unable to write to the channel
+	 */
+	public void flush() throws IOException {
+		if (channel == null) {
+			return;
+		}
+
+		ByteBuffer source = ByteBuffer.wrap(buffer, 0, length);
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+		length = 0;
+	}
+
+	/**
+	 * Flushes any bytes left in the buffer and closes the channel.
+	 *
+	 * @throws IOException if unable to write to or close the channel
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * A range of consecutive words of an inverted index, rendered into memory
+	 * by a work queue thread.
+	 */
+	private class IndexChunk implements Runnable {
+		/**
+		 * Words in this range, along with their locations and positions.
+		 */
+		private final ArrayList<Map.Entry<String, ? extends Map<String, ? extends Collection<Integer>>>> entries;
+
+		/**
+		 * True if this range starts with the first word of the index.
+		 */
+		private final boolean first;
+
+		/**
+		 * Number of positions stored for the words in this range.
+		 */
+		private int positions;
+
+		/**
+		 * Writer the range was rendered into, or null if it has not been rendered.
+		 */
+		private StreamingJsonWriter rendered;
+
+		/**
+		 * Exception thrown while rendering, if any.
+		 */
+		private Exception error;
+
+		/**
+		 * True once rendering has finished, whether or not it succeeded.
+		 */
+		private boolean done;
+
+		/**
+		 * Initializes an empty range.
+		 *
+		 * @param first true if the range starts with the first word of the index
+		 */
+		public IndexChunk(boolean first) {
+			this.entries = new ArrayList<>();
+			this.first = first;
+			this.positions = 0;
+			this.rendered = null;
+			this.error = null;
+			this.done = false;
+		}
+
+		/**
+		 * Adds the next word to this range.
+		 *
+		 * @param entry the word along with its locations and positions
+		 */
+		public void add(Map.Entry<String, ? extends Map<String, ? extends Collection<Integer>>> entry) {
+			entries.add(entry);
+
+			for (Collection<Integer> locationPositions : entry.getValue().values()) {
+				positions += locationPositions.size();
+			}
+		}
+
+		@Override
+		public void run() {
+			StreamingJsonWriter writer = new StreamingJsonWriter(pretty);
+
+			try {
+				for (int i = 0; i < entries.size(); i++) {
+					var entry = entries.get(i);
+					writer.writeIndexEntry(entry.getKey(), entry.getValue(), first && i == 0);
+				}
+				rendered = writer;
+			} catch (IOException | RuntimeException e) {
+				error = e;
+			} finally {
+				synchronized (this) {
+					done = true;
+					this.notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Waits until this range has been rendered.
+		 *
+		 * @return writer the range was rendered into
+		 * @throws IOException if rendering failed or waiting was interrupted
+		 */
+		public synchronized StreamingJsonWriter await() throws IOException {
+			try {
+				while (!done) {
+					this.wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while writing the index.", e);
+			}
+
+			if (rendered == null) {
+				throw new IOException("Unable to write the index.", error);
+			}
+			return rendered;
+		}
+	}
+}
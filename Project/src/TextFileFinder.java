@@ -1,7 +1,10 @@
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -16,6 +19,21 @@ import java.util.stream.Stream;
  * @version Fall 2019
  */
 public class TextFileFinder {
+	/**
+	 * An action performed on every text file found, which may throw an
+	 * IOException.
+	 */
+	@FunctionalInterface
+	public interface FileAction {
+		/**
+		 * Performs the action on a text file.
+		 *
+		 * @param file the text file found
+		 * @throws IOException if the file is not able to be used
+		 */
+		public void accept(Path file) throws IOException;
+	}
+
 	/**
 	 * A lambda function that returns true if the path is a file that ends in a .txt or .text extension
 	 * (case-insensitive). Useful for {@link Files#walk(Path, FileVisitOption...)}.
@@ -48,6 +66,23 @@ public class TextFileFinder {
 					.filter(IS_TEXT);
 	}
 
+	/**
+	 * Returns a stream of the text files accepted by filter, following any
+	 * symbolic links encountered. The filter is tested before checking if a
+	 * path is a text file, so rejected files are never touched.
+	 *
+	 * @param start  the initial path to start with
+	 * @param filter test every path must pass, such as a {@link Partition}
+	 * @return a stream of text files
+	 * @throws IOException if file at path is not able to be found
+	 * @see #find(Path)
+	 */
+	public static Stream<Path> find(Path start, Predicate<Path> filter) throws IOException {
+		return Files.walk(start, FileVisitOption.FOLLOW_LINKS)
+					.filter(filter)
+					.filter(IS_TEXT);
+	}
+
 	/**
 	 * Returns a list of text files.
 	 *
@@ -59,4 +94,190 @@ public class TextFileFinder {
 	public static List<Path> list(Path start) throws IOException {
 		return find(start).collect(Collectors.toList());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Performs an action on every text file found in start as soon as it is
+	 * found, walking the directory lazily instead of collecting every path
+	 * first.
+	 *
+	 * @param start  the initial path to search
+	 * @param action the action to perform on every text file
+	 * @return number of text files found
+	 * @throws IOException if a directory is not able to be walked or the action
+	 *                     throws an IOException, which stops the walk
+	 * @see #find(Path)
+	 */
+	public static int forEach(Path start, FileAction action) throws IOException {
+		return forEach(start, Partition.ALL, action);
+	}
+
+	/**
+	 * Performs an action on every text file found in start that is accepted
+	 * by filter as soon as it is found, walking the directory lazily instead of
+	 * collecting every path first.
+	 *
+	 * @param start  the initial path to search
+	 * @param filter test every path must pass, such as a {@link Partition}
+	 * @param action the action to perform on every text file
+	 * @return number of text files found and accepted
+	 * @throws IOException if a directory is not able to be walked or the action
+	 *                     throws an IOException, which stops the walk
+	 * @see #find(Path, Predicate)
+	 */
+	public static int forEach(Path start, Predicate<Path> filter, FileAction action) throws IOException {
+		int files = 0;
+
+		try (Stream<Path> found = find(start, filter)) {
+			Iterator<Path> iterator = found.iterator();
+			while (iterator.hasNext()) {
+				action.accept(iterator.next());
+				++files;
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		return files;
+	}
+
+	/**
+	 * Performs an action on every text file found in start, walking every
+	 * directory directly inside start on its own task of the work queue. Text
+	 * files directly inside start are found by the calling thread. The action
+	 * is performed by whichever thread found the file, so it must be
+	 * thread-safe, and may queue more work. Waits until all work queued has
+	 * finished.
+	 *
+	 * @param start  the initial path to search
+	 * @param queue  work queue used to walk directories in parallel
+	 * @param action the action to perform on every text file
+	 * @return number of text files found
+	 * @throws IOException if a directory is not able to be walked or the action
+	 *                     throws an IOException, which stops the walk of that
+	 *                     directory
+	 * @see #forEach(Path, FileAction)
+	 */
+	public static int forEach(Path start, WorkQueue queue, FileAction action) throws IOException {
+		return forEach(start, queue, Partition.ALL, action);
+	}
+
+	/**
+	 * Performs an action on every text file found in start that is accepted
+	 * by filter, walking every directory directly inside start on its own task
+	 * of the work queue, exactly like
+	 * {@link #forEach(Path, WorkQueue, FileAction)}.
+	 *
+	 * @param start  the initial path to search
+	 * @param queue  work queue used to walk directories in parallel
+	 * @param filter test every path must pass, such as a {@link Partition}
+	 * @param action the action to perform on every text file
+	 * @return number of text files found and accepted
+	 * @throws IOException if a directory is not able to be walked or the action
+	 *                     throws an IOException, which stops the walk of that
+	 *                     directory
+	 * @see #forEach(Path, Predicate, FileAction)
+	 */
+	public static int forEach(Path start, WorkQueue queue, Predicate<Path> filter, FileAction action) throws IOException {
+		if (!Files.isDirectory(start)) {
+			try {
+				return forEach(start, filter, action);
+			} finally {
+				queue.finish();
+			}
+		}
+
+		ParallelWalk walk = new ParallelWalk(filter, action);
+
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(start)) {
+			for (Path entry : entries) {
+				if (Files.isDirectory(entry)) {
+					queue.execute(() -> walk.walk(entry));
+				} else if (filter.test(entry) && IS_TEXT.test(entry)) {
+					action.accept(entry);
+					walk.found();
+				}
+			}
+		} finally {
+			queue.finish();
+		}
+
+		return walk.finish();
+	}
+
+	/**
+	 * State shared by the tasks of a parallel walk.
+	 */
+	private static class ParallelWalk {
+		/**
+		 * The action to perform on every text file.
+		 */
+		private final FileAction action;
+
+		/**
+		 * Test every path must pass.
+		 */
+		private final Predicate<Path> filter;
+
+		/**
+		 * Number of text files found so far.
+		 */
+		private int files;
+
+		/**
+		 * First exception thrown while walking, if any.
+		 */
+		private IOException failure;
+
+		/**
+		 * Creates the state of a parallel walk.
+		 *
+		 * @param filter test every path must pass
+		 * @param action the action to perform on every text file
+		 */
+		public ParallelWalk(Predicate<Path> filter, FileAction action) {
+			this.filter = filter;
+			this.action = action;
+		}
+
+		/**
+		 * Performs the action on every text file found in directory, recording
+		 * the first exception thrown instead of throwing it.
+		 *
+		 * @param directory the directory to walk
+		 */
+		public void walk(Path directory) {
+			try {
+				forEach(directory, filter, file -> {
+					action.accept(file);
+					found();
+				});
+			} catch (IOException e) {
+				synchronized (this) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Counts one text file found.
+		 */
+		public synchronized void found() {
+			files++;
+		}
+
+		/**
+		 * Returns the number of text files found once the walk is done.
+		 *
+		 * @return number of text files found
+		 * @throws IOException if an exception was thrown while walking
+		 */
+		public synchronized int finish() throws IOException {
+			if (failure != null) {
+				throw failure;
+			}
+			return files;
+		}
+	}
+}
@@ -1,4 +1,5 @@
 import java.text.Normalizer;
+import java.util.ArrayList;
 import java.util.regex.Pattern;
 
 /**
@@ -19,6 +20,12 @@ public class TextParser {
 	 **/
 	public static final Pattern CLEAN_REGEX = Pattern.compile("(?U)[^\\p{Alpha}\\p{Space}]+");
 
+	/**
+	 * Tokenizer of each thread, reused for every text the thread parses so its
+	 * read buffers are only allocated once.
+	 */
+	private static final ThreadLocal<TextTokenizer> TOKENIZERS = ThreadLocal.withInitial(TextTokenizer::new);
+
 	/**
 	 * Cleans the text by removing any non-alphabetic characters (e.g. non-letters
 	 * like digits, punctuation, symbols, and diacritical marks like the umlaut) and
@@ -44,14 +51,19 @@ public class TextParser {
 	}
 
 	/**
-	 * Cleans the text and then splits it by whitespace.
+	 * Cleans the text and then splits it by whitespace. Gives the same words as
+	 * {@link #split(String)} of {@link #clean(String)}, in a single pass over the
+	 * text.
 	 *
 	 * @param text the text to clean and split
 	 * @return an array of {@link String} objects
 	 * @see #clean(String)
-	 * @see #parse(String)
+	 * @see #split(String)
+	 * @see TextTokenizer
 	 */
 	public static String[] parse(String text) {
-		return split(clean(text));
+		ArrayList<String> words = new ArrayList<>();
+		TOKENIZERS.get().tokenize(text, 0, (token, position) -> words.add(token.toString()));
+		return words.toArray(new String[0]);
 	}
 }
@@ -0,0 +1,410 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Splits text into cleaned words in a single pass, without regular
+ * expressions. The words found in every line are exactly the same as
+ * {@link TextParser#split(String)} of {@link TextParser#clean(String)}: text is
+ * decomposed into canonical form, anything that is not alphabetic or
+ * whitespace is removed, and the remaining text is converted to lowercase and
+ * split by whitespace.
+ * <p>
+ * ASCII text is handled one character at a time without creating any objects.
+ * Only runs of non-ASCII characters are decomposed, and only words containing
+ * non-ASCII letters are converted to lowercase with
+ * {@link String#toLowerCase()}. The few words whose lowercase form depends on
+ * the text around them, like a Greek capital sigma at the end of a word, are
+ * converted along with the whitespace on either side of them. Every word is
+ * passed to a callback in the same reusable buffer, which is only valid until
+ * the callback returns.
+ * <p>
+ * Files are read into a reusable byte buffer and decoded into a reusable
+ * character buffer one piece at a time, so no line is ever stored as a String,
+ * no matter how long it is.
+ * <p>
+ * Warning: This class is not thread-safe. Each thread should use its own
+ * tokenizer.
+ *
+ * @see TextParser
+ */
+public class TextTokenizer {
+	/**
+	 * Receives the words found by a tokenizer.
+	 */
+	@FunctionalInterface
+	public interface TokenConsumer {
+		/**
+		 * Accepts the next word found.
+		 *
+		 * @param token    the word found, only valid until this method returns
+		 * @param position the position of the word, counting from 1
+		 */
+		public void accept(CharSequence token, int position);
+	}
+
+	/**
+	 * The default size of the buffers files are read and decoded into.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Reusable buffer holding the word being read.
+	 */
+	private final StringBuilder token;
+
+	/**
+	 * True if token only contains ASCII characters.
+	 */
+	private boolean ascii;
+
+	/**
+	 * True if no letter has been found yet in the current line.
+	 */
+	private boolean leading;
+
+	/**
+	 * True if an empty word must be passed on before the next word found.
+	 */
+	private boolean leadingEmpty;
+
+	/**
+	 * The last whitespace code point found in the current line, or -1 if none
+	 * has been found yet.
+	 */
+	private int lastSpace;
+
+	/**
+	 * True if ASCII letters in the default locale are converted to lowercase
+	 * the usual way, without {@link String#toLowerCase()}. Turkish and
+	 * Azerbaijani convert {@code 'I'} to a dotless i instead.
+	 */
+	private boolean asciiLowercase;
+
+	/**
+	 * True if converting non-ASCII letters to lowercase in the default locale
+	 * depends on the letters around them.
+	 */
+	private boolean localeDependent;
+
+	/**
+	 * Reusable buffer files are read into.
+	 */
+	private final ByteBuffer bytes;
+
+	/**
+	 * Reusable buffer files are decoded into, which grows if a file has a run
+	 * of non-ASCII characters longer than the buffer.
+	 */
+	private CharBuffer chars;
+
+	/**
+	 * Reusable decoder used to decode files as UTF-8.
+	 */
+	private final CharsetDecoder decoder;
+
+	/**
+	 * Initializes a tokenizer that reads files with the default buffer size.
+	 */
+	public TextTokenizer() {
+		this(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Initializes a tokenizer that reads files with the provided buffer size.
+	 *
+	 * @param bufferSize the size of the buffers files are read and decoded into
+	 */
+	public TextTokenizer(int bufferSize) {
+		this.token = new StringBuilder();
+		this.bytes = ByteBuffer.allocateDirect(bufferSize);
+		this.chars = CharBuffer.allocate(bufferSize);
+		this.decoder = StandardCharsets.UTF_8.newDecoder();
+	}
+
+	/**
+	 * Finds every word in text, passing each one to consumer along with its
+	 * position. Words are numbered starting after position, so a document read
+	 * one line at a time can be numbered by passing in the value returned for
+	 * the previous line.
+	 *
+	 * @param text     the text to split into words
+	 * @param position the position of the word before the first word in text
+	 * @param consumer the callback to pass each word to
+	 * @return the position of the last word found, or position if none were
+	 *         found
+	 */
+	public int tokenize(CharSequence text, int position, TokenConsumer consumer) {
+		begin();
+		position = feed(text, 0, text.length(), position, consumer);
+		return endToken(position, -1, consumer);
+	}
+
+	/**
+	 * Finds every word in a UTF-8 text file, passing each one to consumer along
+	 * with its position. The words and positions are exactly the same as
+	 * passing every line read by {@link BufferedReader#readLine()} to
+	 * {@link #tokenize(CharSequence, int, TokenConsumer)} in order.
+	 *
+	 * @param file     the file to split into words
+	 * @param position the position of the word before the first word in file
+	 * @param consumer the callback to pass each word to
+	 * @return the position of the last word found, or position if none were
+	 *         found
+	 * @throws IOException if the file is not able to be read or is not valid
+	 *                     UTF-8
+	 * @see #tokenize(ReadableByteChannel, int, TokenConsumer)
+	 */
+	public int tokenize(Path file, int position, TokenConsumer consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file)) {
+			return tokenize(channel, position, consumer);
+		}
+	}
+
+	/**
+	 * Finds every word in UTF-8 text read from a channel until it reaches its
+	 * end, passing each one to consumer along with its position. The channel is
+	 * not closed.
+	 *
+	 * @param channel  the channel to read the text from
+	 * @param position the position of the word before the first word read
+	 * @param consumer the callback to pass each word to
+	 * @return the position of the last word found, or position if none were
+	 *         found
+	 * @throws IOException if the channel is not able to be read or the text is
+	 *                     not valid UTF-8
+	 * @see #tokenize(Path, int, TokenConsumer)
+	 */
+	public int tokenize(ReadableByteChannel channel, int position, TokenConsumer consumer) throws IOException {
+		begin();
+		decoder.reset();
+		bytes.clear();
+		chars.clear();
+
+		boolean endOfInput = false;
+		boolean flushing = false;
+		boolean finished = false;
+
+		while (!finished) {
+			if (!endOfInput) {
+				endOfInput = channel.read(bytes) < 0;
+			}
+
+			if (!flushing) {
+				bytes.flip();
+				CoderResult result = decoder.decode(bytes, chars, endOfInput);
+				bytes.compact();
+
+				if (result.isError()) {
+					result.throwException();
+				}
+				flushing = endOfInput && result.isUnderflow();
+			}
+
+			if (flushing) {
+				finished = decoder.flush(chars).isUnderflow();
+			}
+
+			position = feedDecoded(finished, position, consumer);
+		}
+
+		return endToken(position, -1, consumer);
+	}
+
+	/**
+	 * Finds the words in the characters decoded into chars, up to and including
+	 * the last ASCII character, so a run of non-ASCII characters is never split
+	 * between two pieces. The characters after it are moved to the start of
+	 * chars to be read with the next piece. If chars is full without any ASCII
+	 * character, it is grown instead.
+	 *
+	 * @param finished true if there is nothing left to decode
+	 * @param position the position of the last word passed on
+	 * @param consumer the callback to pass each word to
+	 * @return the position of the last word passed on
+	 */
+	private int feedDecoded(boolean finished, int position, TokenConsumer consumer) {
+		char[] array = chars.array();
+		int decoded = chars.position();
+		int cut = decoded;
+
+		if (!finished) {
+			while (cut > 0 && array[cut - 1] >= 0x80) {
+				cut--;
+			}
+
+			if (cut == 0) {
+				if (decoded == array.length) {
+					chars = CharBuffer.allocate(array.length * 2);
+					chars.put(array, 0, decoded);
+				}
+				return position;
+			}
+		}
+
+		position = feed(chars.duplicate().flip(), 0, cut, position, consumer);
+		System.arraycopy(array, cut, array, 0, decoded - cut);
+		chars.clear().position(decoded - cut);
+		return position;
+	}
+
+	/**
+	 * Prepares to find the words of a new text.
+	 */
+	private void begin() {
+		String language = Locale.getDefault().getLanguage();
+		asciiLowercase = !language.equals("tr") && !language.equals("az");
+		localeDependent = !asciiLowercase || language.equals("lt");
+
+		token.setLength(0);
+		ascii = true;
+		beginLine();
+	}
+
+	/**
+	 * Prepares to find the words of a new line.
+	 */
+	private void beginLine() {
+		leading = true;
+		leadingEmpty = false;
+		lastSpace = -1;
+	}
+
+	/**
+	 * Finds the words in part of a text. A text may be passed on in several
+	 * pieces, as long as no piece ends in the middle of a run of non-ASCII
+	 * characters, and a word at the end of one piece is continued by the next.
+	 * Line feeds and carriage returns end the current line the same way
+	 * {@link BufferedReader#readLine()} does.
+	 *
+	 * @param text     the text to split into words
+	 * @param start    the index of the first character to read
+	 * @param end      the index after the last character to read
+	 * @param position the position of the last word passed on
+	 * @param consumer the callback to pass each word to
+	 * @return the position of the last word passed on
+	 */
+	private int feed(CharSequence text, int start, int end, int position, TokenConsumer consumer) {
+		int i = start;
+
+		while (i < end) {
+			char c = text.charAt(i);
+
+			if (c < 0x80) {
+				if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+					token.append(c);
+					leading = false;
+				} else if (c == '\n' || c == '\r') {
+					position = endToken(position, -1, consumer);
+					beginLine();
+				} else if (c == ' ' || (c >= 0x09 && c <= 0x0D)) {
+					position = endToken(position, c, consumer);
+					lastSpace = c;
+				}
+				i++;
+				continue;
+			}
+
+			int runEnd = i + 1;
+			while (runEnd < end && text.charAt(runEnd) >= 0x80) {
+				runEnd++;
+			}
+
+			String decomposed = Normalizer.normalize(text.subSequence(i, runEnd), Normalizer.Form.NFD);
+			for (int j = 0; j < decomposed.length(); ) {
+				int codePoint = decomposed.codePointAt(j);
+
+				if (Character.isAlphabetic(codePoint)) {
+					token.appendCodePoint(codePoint);
+					ascii &= codePoint < 0x80;
+					leading = false;
+				} else if (isSpace(codePoint)) {
+					if (leading && !Character.isWhitespace(codePoint)) {
+						leadingEmpty = true;
+					}
+					position = endToken(position, codePoint, consumer);
+					lastSpace = codePoint;
+				}
+
+				j += Character.charCount(codePoint);
+			}
+
+			i = runEnd;
+		}
+
+		return position;
+	}
+
+	/**
+	 * Passes the word in token on to consumer, if there is one, and clears
+	 * token for the next word.
+	 * <p>
+	 * {@link String#strip()} in {@link TextParser#split(String)} does not treat
+	 * every whitespace character as whitespace, so a line whose only leading
+	 * whitespace includes one of those characters also splits into an empty
+	 * word before its first word. That empty word is passed on here as well.
+	 *
+	 * @param position the position of the last word passed on
+	 * @param next     the whitespace code point after the word, or -1 if the
+	 *                 word ends its line
+	 * @param consumer the callback to pass the word to
+	 * @return the position of the last word passed on
+	 */
+	private int endToken(int position, int next, TokenConsumer consumer) {
+		if (token.length() == 0) {
+			return position;
+		}
+
+		if (leadingEmpty) {
+			leadingEmpty = false;
+			consumer.accept("", ++position);
+		}
+
+		if (ascii && asciiLowercase) {
+			for (int i = 0; i < token.length(); i++) {
+				char c = token.charAt(i);
+				if (c >= 'A' && c <= 'Z') {
+					token.setCharAt(i, (char) (c + ('a' - 'A')));
+				}
+			}
+		} else if (!ascii && (localeDependent || token.indexOf("\u03A3") >= 0)) {
+			String before = lastSpace < 0 ? "" : Character.toString(lastSpace);
+			String after = next < 0 ? "" : Character.toString(next);
+			String lowercase = (before + token + after).toLowerCase();
+			token.setLength(0);
+			token.append(lowercase, before.length(), lowercase.length() - after.length());
+		} else {
+			String lowercase = token.toString().toLowerCase();
+			token.setLength(0);
+			token.append(lowercase);
+		}
+
+		consumer.accept(token, ++position);
+		token.setLength(0);
+		ascii = true;
+		return position;
+	}
+
+	/**
+	 * Checks if a code point is whitespace, using the same definition as
+	 * {@link TextParser#SPLIT_REGEX}.
+	 *
+	 * @param codePoint the code point to check
+	 * @return true if codePoint is whitespace
+	 */
+	private static boolean isSpace(int codePoint) {
+		int type = Character.getType(codePoint);
+		return type == Character.SPACE_SEPARATOR || type == Character.LINE_SEPARATOR
+				|| type == Character.PARAGRAPH_SEPARATOR || (codePoint >= 0x09 && codePoint <= 0x0D)
+				|| codePoint == 0x85;
+	}
+}
@@ -0,0 +1,127 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that {@link TextTokenizer} finds exactly the same words as
+ * {@link TextParser#clean(String)} and {@link TextParser#split(String)}. A few
+ * lines with tricky characters are always compared, and so is every line of
+ * every text file found in the path given as the first argument, if any. Every
+ * file is also split as a whole by
+ * {@link TextTokenizer#tokenize(Path, int, TextTokenizer.TokenConsumer)}, once
+ * with the default buffer size and once with a tiny one, and compared with the
+ * words and positions found line by line. How long each way took is reported.
+ * <p>
+ * Exits with status 1 if any line or file differs.
+ *
+ * @see TextTokenizer
+ */
+public class TextTokenizerCheck {
+	/**
+	 * Lines that are always compared: diacritics, both composed and
+	 * decomposed, apostrophes and digits inside words, unusual whitespace,
+	 * letters whose lowercase form depends on the letters around them, and
+	 * letters outside the basic multilingual plane.
+	 */
+	private static final List<String> LINES = List.of(
+			"",
+			"   ",
+			"The Quick BROWN fox's e-mail: fox@example.com",
+			"na\u00EFve caf\u00E9 r\u00E9sum\u00E9 \u00C0\u00C9\u00CE\u00D5\u00DC \u00F1and\u00FA",
+			"nai\u0308ve cafe\u0301",
+			"tab\tseparated\u00A0no-break\u2003em\u2028line\u0085next",
+			"\u039F\u0394\u039F\u03A3 \u039F\u0394\u039F\u03A3. \u03A3 \u03A3\u0391\u03A3",
+			"\u0130stanbul \u01C5emal \u00DF \uFB01ne",
+			"123 4th 5five six7",
+			"\uD835\uDC00\uD835\uDC01\uD835\uDC02 plain \uD801\uDC00\uD801\uDC01 \uD835\uDC00x");
+
+	/**
+	 * Runs the check.
+	 *
+	 * @param args optionally, the path of the text files to compare
+	 * @throws IOException if a file was not able to be read
+	 */
+	public static void main(String[] args) throws IOException {
+		TextTokenizer tokenizer = new TextTokenizer();
+		TextTokenizer tiny = new TextTokenizer(4);
+		ArrayList<String> words = new ArrayList<>();
+		ArrayList<String> expectedFile = new ArrayList<>();
+		ArrayList<String> foundFile = new ArrayList<>();
+		long lines = 0;
+		long tokens = 0;
+		long mismatches = 0;
+		long fileMismatches = 0;
+		long regexNanos = 0;
+		long tokenizerNanos = 0;
+
+		for (String line : LINES) {
+			String[] expected = TextParser.split(TextParser.clean(line));
+			words.clear();
+			tokenizer.tokenize(line, 0, (token, position) -> words.add(token.toString()));
+
+			if (!Arrays.asList(expected).equals(words)) {
+				mismatches++;
+				System.out.printf("\"%s\": expected %s but found %s%n", line, Arrays.toString(expected), words);
+			}
+
+			lines++;
+			tokens += expected.length;
+		}
+
+		List<Path> files = args.length > 0 ? TextFileFinder.list(Path.of(args[0])) : List.of();
+
+		for (Path file : files) {
+			expectedFile.clear();
+
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					long start = System.nanoTime();
+					String[] expected = TextParser.split(TextParser.clean(line));
+					regexNanos += System.nanoTime() - start;
+
+					words.clear();
+					start = System.nanoTime();
+					tokenizer.tokenize(line, 0, (token, position) -> words.add(token.toString()));
+					tokenizerNanos += System.nanoTime() - start;
+
+					if (!Arrays.asList(expected).equals(words)) {
+						mismatches++;
+						System.out.printf("%s: expected %s but found %s%n", file, Arrays.toString(expected), words);
+					}
+
+					for (String word : expected) {
+						expectedFile.add(expectedFile.size() + 1 + " " + word);
+					}
+
+					lines++;
+					tokens += expected.length;
+				}
+			}
+
+			for (TextTokenizer fileTokenizer : new TextTokenizer[] { tokenizer, tiny }) {
+				foundFile.clear();
+				fileTokenizer.tokenize(file, 0, (token, position) -> foundFile.add(position + " " + token));
+
+				if (!expectedFile.equals(foundFile)) {
+					fileMismatches++;
+					System.out.printf("%s: words of the whole file differ from the words of each line%n", file);
+				}
+			}
+		}
+
+		System.out.printf("Compared %d words on %d lines of %d files: %d mismatched lines, %d mismatched files%n",
+				tokens, lines, files.size(), mismatches, fileMismatches);
+		System.out.printf("Regular expressions: %f seconds, tokenizer: %f seconds%n", regexNanos / 1e9,
+				tokenizerNanos / 1e9);
+
+		if (mismatches > 0 || fileMismatches > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A thread-safe version of {@link InvertedIndex} that uses a read/write lock,
+ * so any number of threads may search the index at the same time while
+ * writers wait for exclusive access.
+ * <p>
+ * Collections returned by the get methods are unmodifiable views; they should
+ * not be iterated while another thread may still be adding to the index.
+ *
+ * @see InvertedIndex
+ * @see ReentrantReadWriteLock
+ */
+public class ThreadSafeInvertedIndex extends InvertedIndex {
+	/**
+	 * The lock used to protect concurrent access to the underlying index.
+	 */
+	private final ReentrantReadWriteLock lock;
+
+	/**
+	 * Class constructor that initializes the index and its lock
+	 */
+	public ThreadSafeInvertedIndex() {
+		super();
+		this.lock = new ReentrantReadWriteLock();
+	}
+
+	@Override
+	public void add(String word, String location, int position) {
+		lock.writeLock().lock();
+		try {
+			super.add(word, location, position);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds every word, location and position stored in other to this index
+	 * while holding the write lock once, instead of once per word.
+	 *
+	 * @param other index whose data will be merged into this index
+	 */
+	@Override
+	public void addAll(InvertedIndex other) {
+		lock.writeLock().lock();
+		try {
+			super.addAll(other);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the locations and positions stored in other for each of the words
+	 * provided to this index while holding the write lock once.
+	 *
+	 * @param other index whose data will be merged into this index
+	 * @param words words of other to merge
+	 */
+	@Override
+	public void addAll(InvertedIndex other, Collection<String> words) {
+		lock.writeLock().lock();
+		try {
+			super.addAll(other, words);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void trackLocationWords() {
+		lock.writeLock().lock();
+		try {
+			super.trackLocationWords();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(String location) {
+		lock.writeLock().lock();
+		try {
+			return super.remove(location);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void writeIndex(Path path, boolean pretty) throws IOException {
+		lock.readLock().lock();
+		try {
+			super.writeIndex(path, pretty);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void writeIndex(Path path, boolean pretty, WorkQueue queue) throws IOException {
+		lock.readLock().lock();
+		try {
+			super.writeIndex(path, pretty, queue);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void writeBinary(Path path) throws IOException {
+		lock.readLock().lock();
+		try {
+			super.writeBinary(path);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void writeCounts(Path path, boolean pretty) throws IOException {
+		lock.readLock().lock();
+		try {
+			super.writeCounts(path, pretty);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(String word) {
+		lock.readLock().lock();
+		try {
+			return super.contains(word);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(String word, String location) {
+		lock.readLock().lock();
+		try {
+			return super.contains(word, location);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(String word, String location, int position) {
+		lock.readLock().lock();
+		try {
+			return super.contains(word, location, position);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Collection<String> get() {
+		lock.readLock().lock();
+		try {
+			return super.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Collection<String> get(String word) {
+		lock.readLock().lock();
+		try {
+			return super.get(word);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Collection<Integer> get(String word, String location) {
+		lock.readLock().lock();
+		try {
+			return super.get(word, location);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Integer getWordCount(String location) {
+		lock.readLock().lock();
+		try {
+			return super.getWordCount(location);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public long getModifications() {
+		lock.readLock().lock();
+		try {
+			return super.getModifications();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public ArrayList<Result> getExactResults(Query searchQuery, int limit) {
+		lock.readLock().lock();
+		try {
+			return super.getExactResults(searchQuery, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public ArrayList<Result> getPartialResults(Query searchQuery, int limit) {
+		lock.readLock().lock();
+		try {
+			return super.getPartialResults(searchQuery, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	protected void addCounts(String word, Map<String, Integer> counts) {
+		lock.readLock().lock();
+		try {
+			super.addCounts(word, counts);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	protected void addPartialCounts(String prefix, Map<String, Integer> counts) {
+		lock.readLock().lock();
+		try {
+			super.addPartialCounts(prefix, counts);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public FrozenInvertedIndex freeze() {
+		lock.readLock().lock();
+		try {
+			return super.freeze();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		lock.readLock().lock();
+		try {
+			return super.toString();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,163 @@
+import java.util.LinkedList;
+
+/**
+ * A simple work queue implementation that keeps a fixed pool of worker threads
+ * alive and hands them {@link Runnable} tasks in the order they were queued.
+ * Callers can wait for all pending work to complete with {@link #finish()}
+ * without having to shut the pool down.
+ */
+public class WorkQueue {
+	/**
+	 * Pool of worker threads that will wait in the background until work is
+	 * available.
+	 */
+	private final PoolWorker[] workers;
+
+	/**
+	 * Queue of pending work requests.
+	 */
+	private final LinkedList<Runnable> queue;
+
+	/**
+	 * Used to signal the queue should be shutdown.
+	 */
+	private volatile boolean shutdown;
+
+	/**
+	 * Number of tasks that have been queued but not yet completed.
+	 */
+	private int pending;
+
+	/**
+	 * The default number of threads to use when not specified.
+	 */
+	public static final int DEFAULT = 5;
+
+	/**
+	 * Starts a work queue with the default number of threads.
+	 *
+	 * @see #WorkQueue(int)
+	 */
+	public WorkQueue() {
+		this(DEFAULT);
+	}
+
+	/**
+	 * Starts a work queue with the specified number of threads.
+	 *
+	 * @param threads number of worker threads; should be greater than 1
+	 */
+	public WorkQueue(int threads) {
+		this.queue = new LinkedList<>();
+		this.workers = new PoolWorker[threads];
+		this.shutdown = false;
+		this.pending = 0;
+
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new PoolWorker();
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Adds a work request to the queue. A thread will process this request when
+	 * available.
+	 *
+	 * @param r work request (in the form of a {@link Runnable} object)
+	 */
+	public void execute(Runnable r) {
+		synchronized (this) {
+			pending++;
+		}
+
+		synchronized (queue) {
+			queue.addLast(r);
+			queue.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits for all pending work to be finished.
+	 */
+	public synchronized void finish() {
+		try {
+			while (pending > 0) {
+				this.wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Asks the queue to shutdown. Any unprocessed work will not be finished, but
+	 * threads in-progress will not be interrupted.
+	 */
+	public void shutdown() {
+		shutdown = true;
+
+		synchronized (queue) {
+			queue.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the number of worker threads being used by the work queue.
+	 *
+	 * @return number of worker threads
+	 */
+	public int size() {
+		return workers.length;
+	}
+
+	/**
+	 * Decrements the number of pending tasks, waking up any threads waiting in
+	 * {@link #finish()} once all work is done.
+	 */
+	private synchronized void decrementPending() {
+		pending--;
+
+		if (pending <= 0) {
+			this.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until work is available in the work queue. When work is found, will
+	 * remove the work from the queue and run it. If a shutdown is detected, will
+	 * exit instead of grabbing new work from the queue. These threads will
+	 * continue running in the background until a shutdown is requested.
+	 */
+	private class PoolWorker extends Thread {
+		@Override
+		public void run() {
+			Runnable r;
+
+			while (true) {
+				synchronized (queue) {
+					while (queue.isEmpty() && !shutdown) {
+						try {
+							queue.wait();
+						} catch (InterruptedException ex) {
+							System.err.println("Warning: Work queue interrupted while waiting.");
+						}
+					}
+
+					if (shutdown) {
+						break;
+					} else {
+						r = queue.removeFirst();
+					}
+				}
+
+				try {
+					r.run();
+				} catch (RuntimeException ex) {
+					System.err.println("Warning: Work queue encountered an exception while running.");
+				} finally {
+					decrementPending();
+				}
+			}
+		}
+	}
+}